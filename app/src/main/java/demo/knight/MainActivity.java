@@ -11,16 +11,31 @@ import android.view.View;
 import android.widget.Button;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import demo.knight.chessboard.BoardCell;
 import demo.knight.chessboard.ChessBoard;
 import demo.knight.chessboard.OnChessBoardCellClickedInterface;
+import demo.knight.core.SolverConfig;
 import demo.knight.recyclerview.RecyclerViewClickListener;
 import demo.knight.recyclerview.SolutionsAdapter;
 import demo.knight.solver.KnightRouteSolver;
 import demo.knight.solver.Solution;
 
-public class MainActivity extends AppCompatActivity implements OnChessBoardCellClickedInterface, RecyclerViewClickListener<Solution> {
+public class MainActivity extends AppCompatActivity implements OnChessBoardCellClickedInterface, RecyclerViewClickListener<Solution>, KnightRouteSolver.SolveRouteCallback, KnightRouteSolver.SolveShortestRoutesCallback {
+
+    private static final int MAX_LISTED_ROUTES = 1000; //nobody scrolls further, the search stops there
+    private static final String STATE_QUERY = "query"; //board size, step limit, start and end square of the last query
+    private static final String STATE_SELECTED_INDEX = "selected_index";
+
+    /**
+     * Solutions survive configuration changes in memory, they are never written to the saved state.
+     * After the process was killed the query is solved again from the saved state instead
+     */
+    static class RetainedSolutions {
+        ArrayList<Solution> solutions;
+        SolverConfig solverConfig;
+    }
 
     RecyclerView recyclerView;
     Button button;
@@ -28,6 +43,8 @@ public class MainActivity extends AppCompatActivity implements OnChessBoardCellC
     SolutionsAdapter adapter;
     ArrayList<Solution> solutions;
     KnightRouteSolver knightRouteSolver;
+    SolverConfig solverConfig; //config of the last query
+    int restoredSelectedIndex = -1; //solution to select once the query of a killed process is solved again
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -63,25 +80,91 @@ public class MainActivity extends AppCompatActivity implements OnChessBoardCellC
             set.applyTo(root);
         }
 
-        knightRouteSolver = new KnightRouteSolver();
+        knightRouteSolver = new KnightRouteSolver(this);
     }
 
     void onCalculateClicked(){
-        ArrayList<Solution> solutions;
         if(chessBoard.startAndStopCellsSelected()){
             BoardCell start = new BoardCell(chessBoard.getStartCell());
             BoardCell end = new BoardCell(chessBoard.getStopCell());
 
-            solutions = knightRouteSolver.solveRoute(start, end);
-            if(solutions.size()==0){
-                solutions.add(new Solution(getString(R.string.cannot_solve_in_x_moves, KnightRouteSolver.MAX_STEPS)));
-            }
+            solverConfig = SolverConfig.square(chessBoard.getBoardSize(), KnightRouteSolver.DEFAULT_MAX_STEPS);
+
+            //solutions are added to the list while the solver finds them
+            showSolutionsOnRecyclerView(new ArrayList<Solution>(), false);
+            knightRouteSolver.solveRouteAsync(solverConfig, start, end, MAX_LISTED_ROUTES, this);
         }
         else{
-            solutions = new ArrayList<>();
+            ArrayList<Solution> solutions = new ArrayList<>();
             solutions.add(new Solution(getString(R.string.select_start_and_destination_positions)));
+            showSolutionsOnRecyclerView(solutions, true);
+        }
+    }
+
+    @Override
+    public void onSolutionsFound(List<Solution> foundSolutions) {
+        boolean isFirstBatch = solutions.isEmpty();
+        int insertPosition = solutions.size();
+        solutions.addAll(foundSolutions);
+        adapter.notifyItemRangeInserted(insertPosition, foundSolutions.size());
+        if(restoredSelectedIndex>=0){
+            restoreSelection();
+        }
+        else if(isFirstBatch){
+            //the first solution is the fastest one, show it while the solver keeps searching
+            onItemClicked(solutions.get(0), 0);
+        }
+    }
+
+    /**
+     * Selects the solution that was selected before the process was killed, as soon as it is
+     * found again. The ChessBoard restores and draws its route by itself
+     */
+    void restoreSelection(){
+        if(restoredSelectedIndex<solutions.size()){
+            solutions.get(restoredSelectedIndex).setSelected(true);
+            adapter.notifyItemChanged(restoredSelectedIndex);
+            restoredSelectedIndex = -1;
+        }
+    }
+
+    @Override
+    public void onProgress(int routeLength, int maxSteps) {
+        button.setText(getString(R.string.searching_routes_with_x_moves, routeLength));
+    }
+
+    @Override
+    public void onSolveFinished() {
+        button.setText(R.string.calculate_path);
+        if(solutions.isEmpty()){
+            //the shortest routes are cheap to find, show them instead of nothing. The selection is restored once they are found
+            knightRouteSolver.solveShortestRoutesAsync(solverConfig, chessBoard.getStartCell(), chessBoard.getStopCell(), MAX_LISTED_ROUTES, this);
         }
-        showSolutionsOnRecyclerView(solutions, true);
+        else {
+            restoredSelectedIndex = -1;
+        }
+    }
+
+    @Override
+    public void onShortestRoutesFound(List<Solution> shortestRoutes) {
+        ArrayList<Solution> solutions = new ArrayList<>();
+        if(shortestRoutes.isEmpty()){
+            solutions.add(new Solution(getString(R.string.cannot_solve_in_x_moves, solverConfig.getMaxSteps())));
+            showSolutionsOnRecyclerView(solutions, true);
+        }
+        else {
+            int moves = shortestRoutes.get(0).getNumberOfMoves();
+            solutions.add(new Solution(getString(R.string.shortest_routes_need_x_moves, solverConfig.getMaxSteps(), moves)));
+            solutions.addAll(shortestRoutes);
+            showSolutionsOnRecyclerView(solutions, false);
+            if(restoredSelectedIndex>=0){
+                restoreSelection();
+            }
+            else {
+                onItemClicked(solutions.get(1), 1);
+            }
+        }
+        restoredSelectedIndex = -1;
     }
 
     void showSolutionsOnRecyclerView(ArrayList<Solution> solutions, boolean showInChessBoard){
@@ -105,6 +188,8 @@ public class MainActivity extends AppCompatActivity implements OnChessBoardCellC
     public void onChessBoardCellClicked() {
         //clear the RecyclerView because a BoardCell was clicked
         //which means the user reset the ChessBoard
+        knightRouteSolver.cancel();
+        button.setText(R.string.calculate_path);
         showSolutionsOnRecyclerView(new ArrayList<Solution>(), false);
     }
 
@@ -121,18 +206,62 @@ public class MainActivity extends AppCompatActivity implements OnChessBoardCellC
 
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        knightRouteSolver.cancel();
+    }
+
+    @Override
+    public Object onRetainCustomNonConfigurationInstance() {
+        if(knightRouteSolver.isSolving()){
+            //the search is cancelled in onDestroy, the restored activity solves the query again
+            return null;
+        }
+        RetainedSolutions retained = new RetainedSolutions();
+        retained.solutions = solutions;
+        retained.solverConfig = solverConfig;
+        return retained;
+    }
+
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putParcelableArrayList("solutions",solutions);
+        //a few bytes, whatever the number of solutions. The ChessBoard saves its own selections
+        if(solverConfig != null && solutions != null && chessBoard.startAndStopCellsSelected()){
+            outState.putIntArray(STATE_QUERY, new int[]{solverConfig.getWidth(), solverConfig.getMaxSteps(),
+                    chessBoard.getStartCell().toSquare(solverConfig.getWidth()), chessBoard.getStopCell().toSquare(solverConfig.getWidth())});
+            outState.putInt(STATE_SELECTED_INDEX, getSelectedIndex());
+        }
     }
 
     @Override
     protected void onRestoreInstanceState(Bundle savedInstanceState) {
         super.onRestoreInstanceState(savedInstanceState);
-        solutions = savedInstanceState.getParcelableArrayList("solutions");
-        if(solutions!=null){
-            showSolutionsOnRecyclerView(solutions, false);
+        RetainedSolutions retained = (RetainedSolutions) getLastCustomNonConfigurationInstance();
+        int[] query = savedInstanceState.getIntArray(STATE_QUERY);
+        if(retained != null && retained.solutions != null){
+            solverConfig = retained.solverConfig;
+            showSolutionsOnRecyclerView(retained.solutions, false);
+        }
+        else if(query != null){
+            int boardSize = query[0];
+            solverConfig = SolverConfig.square(boardSize, query[1]);
+            restoredSelectedIndex = savedInstanceState.getInt(STATE_SELECTED_INDEX, -1);
+            showSolutionsOnRecyclerView(new ArrayList<Solution>(), false);
+            knightRouteSolver.solveRouteAsync(solverConfig, BoardCell.fromSquare(query[2], boardSize), BoardCell.fromSquare(query[3], boardSize), MAX_LISTED_ROUTES, this);
+        }
+    }
+
+    /**
+     * @return the position of the selected solution, or -1
+     */
+    int getSelectedIndex(){
+        for(int i = 0; i<solutions.size(); i++){
+            if(solutions.get(i).isSelected()){
+                return i;
+            }
         }
+        return -1;
     }
 }
@@ -4,17 +4,12 @@ import android.graphics.RectF;
 import android.os.Parcel;
 import android.os.Parcelable;
 
-
-import java.util.ArrayList;
-import java.util.Collections;
+import demo.knight.core.Squares;
 
 public class BoardCell implements Parcelable {
 
-    private static final char[] columnLetters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
-
     private int cellColor;
     private RectF rect;
-    private BoardCell peviousBoardCell; //store which BoardCell the knight started from to land on this BoardCell
     private int column, row;
 
     BoardCell(int row, int column) {
@@ -29,46 +24,17 @@ public class BoardCell implements Parcelable {
     }
 
     /**
-     *
-     * @return List of all BoardCells a knight can move to from this BoardCell in one move
+     * @param square square index as used by the knight-core solver engine
      */
-    public ArrayList<BoardCell> getAllValidKnightDestinations(){
-        ArrayList<BoardCell> nextBoardCells = new ArrayList<>();
-        addBoardCellIfValid(nextBoardCells, new BoardCell(row-2, column-1));
-        addBoardCellIfValid(nextBoardCells, new BoardCell(row-2, column+1));
-        addBoardCellIfValid(nextBoardCells, new BoardCell(row+2, column-1));
-        addBoardCellIfValid(nextBoardCells, new BoardCell(row+2, column+1));
-        addBoardCellIfValid(nextBoardCells, new BoardCell(row-1, column-2));
-        addBoardCellIfValid(nextBoardCells, new BoardCell(row+1, column-2));
-        addBoardCellIfValid(nextBoardCells, new BoardCell(row-1, column+2));
-        addBoardCellIfValid(nextBoardCells, new BoardCell(row+1, column+2));
-        return nextBoardCells;
-    }
-
-    private void addBoardCellIfValid(ArrayList<BoardCell> boardCells, BoardCell boardCell){
-        if(boardCell.getColumn()<0 || boardCell.getColumn()>=ChessBoard.CHESSBOARD_SIZE){
-            return;
-        }
-        if(boardCell.getRow()<0 || boardCell.getRow()>=ChessBoard.CHESSBOARD_SIZE){
-            return;
-        }
-        boardCells.add(boardCell);
+    public static BoardCell fromSquare(int square, int boardSize){
+        return new BoardCell(Squares.row(square, boardSize), Squares.column(square, boardSize));
     }
 
     /**
-     *
-     * @return a list of all the BoardCells the knight had landed on to reach this BoardCell.
+     * @return the square index of this BoardCell as used by the knight-core solver engine
      */
-    public ArrayList<BoardCell> getHistory(){
-        ArrayList<BoardCell> nodesPath = new ArrayList<>();
-        BoardCell prevBoardCell = getPeviousBoardCell();
-        while (prevBoardCell!=null){
-            nodesPath.add(prevBoardCell);
-            prevBoardCell = prevBoardCell.getPeviousBoardCell();
-        }
-        Collections.reverse(nodesPath);
-        nodesPath.add(this);
-        return nodesPath;
+    public int toSquare(int boardSize){
+        return Squares.index(row, column, boardSize);
     }
 
     /**
@@ -107,14 +73,6 @@ public class BoardCell implements Parcelable {
         return row;
     }
 
-    private BoardCell getPeviousBoardCell() {
-        return peviousBoardCell;
-    }
-
-    public void setPreviousBoardCell(BoardCell peviousBoardCell) {
-        this.peviousBoardCell = peviousBoardCell;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -125,9 +83,11 @@ public class BoardCell implements Parcelable {
         return row == cell.row && column == cell.column;
     }
 
-    @Override
-    public String toString() {
-        return Character.toString(columnLetters[column]) + (ChessBoard.CHESSBOARD_SIZE-row) ;
+    /**
+     * @return the algebraic notation of the cell, like A8 for the top left cell of an 8x8 board
+     */
+    public String toAlgebraic(int boardSize) {
+        return Squares.toAlgebraic(toSquare(boardSize), boardSize, boardSize);
     }
 
     //parcelable implementation
@@ -143,12 +103,11 @@ public class BoardCell implements Parcelable {
         }
     };
 
+    //only the coordinates are parceled, the color and the rect are calculated by ChessBoardHelper
     private BoardCell(Parcel in) {
-        cellColor = in.readInt();
-        rect = in.readParcelable(RectF.class.getClassLoader());
-        peviousBoardCell = in.readParcelable(BoardCell.class.getClassLoader());
         column = in.readInt();
         row = in.readInt();
+        rect = new RectF();
     }
 
     @Override
@@ -158,9 +117,6 @@ public class BoardCell implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeInt(cellColor);
-        dest.writeParcelable(rect, flags);
-        dest.writeParcelable(peviousBoardCell, flags);
         dest.writeInt(column);
         dest.writeInt(row);
     }
@@ -1,10 +1,13 @@
 package demo.knight.chessboard;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.RectF;
@@ -28,9 +31,20 @@ import demo.knight.utils.ViewUtils;
 
 public class ChessBoard extends View implements View.OnTouchListener {
 
-    public static int CHESSBOARD_SIZE = 8;
-
-    private Paint paint;
+    public static final int DEFAULT_BOARD_SIZE = 8;
+
+    private Paint paint, circlePaint;
+    private final RectF bitmapDestRect = new RectF(); //reused by every frame, onDraw allocates nothing
+    private final Rect bitmapSrcRect = new Rect();
+    //the squares are drawn once per size into boardLayer. Without hardware acceleration the path
+    //segments drawn so far also accumulate in pathLayer, so a frame only draws the new ones
+    private Bitmap boardLayer, pathLayer;
+    private Canvas pathLayerCanvas;
+    private float[] pathLayerLines; //the route whose segments are in pathLayer
+    private int pathLayerSegmentCount;
+    private int invalidatedSegmentCount = -1; //segments drawn by the last frame the animation invalidated, -1 if unknown
+    private final RectF dirtyBounds = new RectF();
+    private final Rect dirtyRect = new Rect();
     private Bitmap knightBitmap, flagBitmap;
     private float strokeWidth = ViewUtils.dpToPx(5), circleRadius = ViewUtils.dpToPx(5);
     private float cellSize, knightSize, flagSize, bitmapsDrawSize;
@@ -63,7 +77,14 @@ public class ChessBoard extends View implements View.OnTouchListener {
         paint.setStrokeCap(Paint.Cap.ROUND);
         paint.setStrokeWidth(strokeWidth);
 
-        chessBoardHelper = new ChessBoardHelper(getContext());
+        //the circles are drawn as points, a round cap as wide as the circle makes them round
+        circlePaint = new Paint();
+        circlePaint.setAntiAlias(true);
+        circlePaint.setColor(circleColor);
+        circlePaint.setStrokeCap(Paint.Cap.ROUND);
+        circlePaint.setStrokeWidth(circleRadius*2);
+
+        chessBoardHelper = new ChessBoardHelper(getContext(), DEFAULT_BOARD_SIZE);
 
         knightBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.knight);
         flagBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.flag);
@@ -138,35 +159,30 @@ public class ChessBoard extends View implements View.OnTouchListener {
         super.onDraw(canvas);
 
         //draw chess board
-        paint.setStyle(Paint.Style.FILL);
-        for(BoardCell boardCell: chessBoardHelper.getBoardCells()){
-            paint.setColor(boardCell.getCellColor());
-            canvas.drawRect(boardCell.getRect(), paint);
+        if(boardLayer != null){
+            canvas.drawBitmap(boardLayer, 0, 0, null);
         }
 
-        //draw knight path if one exists
-        PathPoint lastPathPointDrawn = null;
-        ArrayList<PathPoint> pathPoints = chessBoardHelper.getPathPoints();
-        if(pathPoints !=null) {
-            float numberOfPointsToDraw = chessBoardHelper.getNumberOfPointsToDraw();
+        //draw knight path if one exists. The route geometry is precomputed, so the part of the
+        //path that is drawn so far takes one call for its lines and one for its circles
+        float[] pathLines = chessBoardHelper.getPathLines();
+        int segmentCount = 0;
+        if(pathLines != null) {
+            segmentCount = getSegmentCount(pathLines);
             paint.setColor(pathColor);
             paint.setStyle(Paint.Style.STROKE);
-            //draw selected path
-            for (int i = 0; i < numberOfPointsToDraw; i++) {
-                PathPoint p1 = pathPoints.get(i);
-                PathPoint p2 = pathPoints.get(i + 1);
-                canvas.drawLine(p1.x, p1.y, p2.x, p2.y, paint);
-                lastPathPointDrawn = p2;
+            //a bitmap that changes every frame would be uploaded to the GPU every frame, so
+            //hardware accelerated canvases draw the lines directly
+            if(!canvas.isHardwareAccelerated() && boardLayer != null){
+                drawNewSegmentsToPathLayer(pathLines, segmentCount);
+                canvas.drawBitmap(pathLayer, 0, 0, null);
             }
-            //draw white circles to highlight each knight move in the route
-            for(int i = 0; i< numberOfPointsToDraw; i++){
-                PathPoint p = pathPoints.get(i);
-                if(p.isCircle()){
-                    paint.setColor(circleColor);
-                    paint.setStyle(Paint.Style.FILL);
-                    canvas.drawCircle(p.x, p.y, circleRadius, paint);
-                }
+            else {
+                canvas.drawLines(pathLines, 0, segmentCount*4, paint);
             }
+            //draw white circles to highlight each knight move in the route. They are drawn on
+            //top of the segments, so they are not part of the path layer
+            canvas.drawPoints(chessBoardHelper.getCirclePoints(), 0, chessBoardHelper.getCircleCount(segmentCount)*2, circlePaint);
         }
 
         //draw knight and flag if user has made selections
@@ -174,34 +190,97 @@ public class ChessBoard extends View implements View.OnTouchListener {
         //if there is a path animation in progress then we need to draw the knight
         //at the last path point that was drawn. Otherwise we draw the knight at
         //the center of the selected cell;
+        BoardCell startCell = chessBoardHelper.getStartCell();
+        BoardCell stopCell = chessBoardHelper.getStopCell();
+        if(startCell == null){
+            return;
+        }
         boolean isAnimating = animator!=null && animator.isStarted();
-        PathPoint knightStartPoint = chessBoardHelper.getStartCell()!=null ? chessBoardHelper.getStartCell().getCenter():null;
-        PathPoint knightPoint = (isAnimating && lastPathPointDrawn!=null) ? lastPathPointDrawn:knightStartPoint;
-        PathPoint knightStopPoint = chessBoardHelper.getStopCell()!=null ? chessBoardHelper.getStopCell().getCenter():null;
+        float knightX = startCell.getRect().centerX();
+        float knightY = startCell.getRect().centerY();
+        if(isAnimating && segmentCount>0){
+            knightX = pathLines[segmentCount*4 - 2];
+            knightY = pathLines[segmentCount*4 - 1];
+        }
 
-        if(knightPoint!=null && knightStopPoint!=null) {
+        if(stopCell!=null) {
+            float stopX = stopCell.getRect().centerX();
+            float stopY = stopCell.getRect().centerY();
             //skip drawing flag if it is too close to the knight to avoid overlay.
-            if (Math.abs(knightPoint.x - knightStopPoint.x) > cellSize/4 || Math.abs(knightPoint.y - knightStopPoint.y) > cellSize/4) {
-                drawBitmapOnPoint(canvas, flagBitmap, knightStopPoint, flagSize);
+            if (Math.abs(knightX - stopX) > cellSize/4 || Math.abs(knightY - stopY) > cellSize/4) {
+                drawBitmapOnPoint(canvas, flagBitmap, stopX, stopY, flagSize);
             }
         }
 
-        drawBitmapOnPoint(canvas, knightBitmap, knightPoint, knightSize);
+        drawBitmapOnPoint(canvas, knightBitmap, knightX, knightY, knightSize);
+
+    }
+
+    /**
+     * @return the number of path segments drawn at the current animation percentage
+     */
+    private int getSegmentCount(float[] pathLines){
+        return Math.max(Math.min(chessBoardHelper.getNumberOfPointsToDraw(), pathLines.length/4), 0);
+    }
 
+    private void drawNewSegmentsToPathLayer(float[] pathLines, int segmentCount){
+        if(pathLayer == null){
+            pathLayer = Bitmap.createBitmap(boardLayer.getWidth(), boardLayer.getHeight(), Bitmap.Config.ARGB_8888);
+            pathLayerCanvas = new Canvas(pathLayer);
+            pathLayerLines = null;
+        }
+        if(pathLines != pathLayerLines || segmentCount<pathLayerSegmentCount){
+            //another route or a restarted animation
+            pathLayer.eraseColor(Color.TRANSPARENT);
+            pathLayerLines = pathLines;
+            pathLayerSegmentCount = 0;
+        }
+        pathLayerCanvas.drawLines(pathLines, pathLayerSegmentCount*4, (segmentCount - pathLayerSegmentCount)*4, paint);
+        pathLayerSegmentCount = segmentCount;
     }
 
-    void drawBitmapOnPoint(Canvas canvas, Bitmap bitmap, PathPoint point, float size){
-        if(point==null){
+    /**
+     * Invalidates only the area around the segments added since the last frame, which also holds
+     * the previous and the new position of the knight. Frames in which the knight pauses on a
+     * cell invalidate nothing.
+     */
+    @SuppressWarnings("deprecation")
+    private void invalidatePathProgress(){
+        float[] pathLines = chessBoardHelper.getPathLines();
+        if(pathLines == null){
+            return;
+        }
+        int segmentCount = getSegmentCount(pathLines);
+        if(segmentCount == invalidatedSegmentCount){
             return;
         }
-        RectF destRec = new RectF();
-        destRec.left = point.x - size/2;
-        destRec.right = destRec.left+size;
-        destRec.top = point.y - size/2;
-        destRec.bottom = destRec.top+size;
-
-        Rect bitmapSrcRect = new Rect(0,0,bitmap.getWidth(), bitmap.getHeight());
-        canvas.drawBitmap(bitmap,bitmapSrcRect, destRec, paint);
+        if(invalidatedSegmentCount<0 || segmentCount<invalidatedSegmentCount || segmentCount == 0){
+            invalidate();
+        }
+        else {
+            int first = Math.max(invalidatedSegmentCount - 1, 0);
+            dirtyBounds.set(pathLines[first*4], pathLines[first*4 + 1], pathLines[first*4], pathLines[first*4 + 1]);
+            for(int i = first*4; i<segmentCount*4; i += 2){
+                dirtyBounds.union(pathLines[i], pathLines[i + 1]);
+            }
+            //room for the knight, the flag it hides when it is close and the circles
+            float margin = Math.max(knightSize, flagSize)/2 + cellSize/4 + Math.max(strokeWidth, circleRadius);
+            dirtyBounds.inset(-margin, -margin);
+            dirtyBounds.roundOut(dirtyRect);
+            //hardware accelerated views redraw all of the view since API 21, only software layers redraw just the rect
+            invalidate(dirtyRect);
+        }
+        invalidatedSegmentCount = segmentCount;
+    }
+
+    void drawBitmapOnPoint(Canvas canvas, Bitmap bitmap, float x, float y, float size){
+        bitmapDestRect.left = x - size/2;
+        bitmapDestRect.right = bitmapDestRect.left+size;
+        bitmapDestRect.top = y - size/2;
+        bitmapDestRect.bottom = bitmapDestRect.top+size;
+
+        bitmapSrcRect.set(0,0,bitmap.getWidth(), bitmap.getHeight());
+        canvas.drawBitmap(bitmap,bitmapSrcRect, bitmapDestRect, paint);
     }
 
     /**
@@ -227,9 +306,23 @@ public class ChessBoard extends View implements View.OnTouchListener {
             @Override
             public void onAnimationUpdate(ValueAnimator animation) {
                 chessBoardHelper.setPercentage((float) animation.getAnimatedValue());
+                invalidatePathProgress();
+            }
+        });
+        animator.addListener(new AnimatorListenerAdapter() {
+            //once the animator stops onDraw puts the knight back on the start cell, that frame
+            //is outside of the invalidated path progress
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                invalidate();
+            }
+
+            @Override
+            public void onAnimationCancel(Animator animation) {
                 invalidate();
             }
         });
+        invalidatedSegmentCount = -1;
         animator.start();
     }
 
@@ -259,10 +352,31 @@ public class ChessBoard extends View implements View.OnTouchListener {
 
     private void calculateSizes(int width, int height){
         int chessBoardSize = Math.min(width, height);
-        cellSize = chessBoardSize/(float)CHESSBOARD_SIZE;
+        cellSize = chessBoardSize/(float)chessBoardHelper.getBoardSize();
         bitmapsDrawSize = knightSize = flagSize = cellSize*0.7f;
 
         chessBoardHelper.onCellSizeCalculated(cellSize);
+        createBoardLayer(width, height);
+    }
+
+    /**
+     * Draws the squares once into boardLayer, every frame then draws them with a single bitmap
+     */
+    private void createBoardLayer(int width, int height){
+        pathLayer = null;
+        pathLayerCanvas = null;
+        invalidatedSegmentCount = -1;
+        if(width<=0 || height<=0){
+            boardLayer = null;
+            return;
+        }
+        boardLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas boardCanvas = new Canvas(boardLayer);
+        paint.setStyle(Paint.Style.FILL);
+        for(BoardCell boardCell: chessBoardHelper.getBoardCells()){
+            paint.setColor(boardCell.getCellColor());
+            boardCanvas.drawRect(boardCell.getRect(), paint);
+        }
     }
 
     //public methods
@@ -278,6 +392,13 @@ public class ChessBoard extends View implements View.OnTouchListener {
         return chessBoardHelper.startAndStopCellsSelected();
     }
 
+    /**
+     * @return the number of rows and columns of the board
+     */
+    public int getBoardSize() {
+        return chessBoardHelper.getBoardSize();
+    }
+
     public BoardCell getStartCell() {
         return chessBoardHelper.getStartCell();
     }
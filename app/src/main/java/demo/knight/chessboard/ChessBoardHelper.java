@@ -20,7 +20,8 @@ public class ChessBoardHelper implements Parcelable {
      *   It's range is 0-1. 0->no path is drawn, 1->whole path is drawn
      */
 
-    private int CHESSBOARD_SIZE = ChessBoard.CHESSBOARD_SIZE;
+    private int boardSize;
+    private int lightCellColor, darkCellColor;
     private BoardCell startCell, stopCell;
     private ArrayList<BoardCell> boardCells;
     private float percentage;
@@ -29,22 +30,31 @@ public class ChessBoardHelper implements Parcelable {
     //the same route but in PathPoint objects that will be used for the knight animation
     private ArrayList<BoardCell> pathCells;
     private ArrayList<PathPoint> pathPoints;
+    //the same route ready for Canvas.drawLines and drawPoints, so a frame needs no loop over the points
+    private float[] pathLines; //segment i, from pathPoints i to i+1, is pathLines[4i] to pathLines[4i+3]
+    private float[] circlePoints; //x and y of the circle points, in path order
+    private int[] circlePointIndexes; //index in pathPoints of each circle point
 
-    ChessBoardHelper(Context context) {
-        int lightCellColor = ContextCompat.getColor(context, R.color.cell_light);
-        int darkCellColor = ContextCompat.getColor(context, R.color.cell_dark);
+    ChessBoardHelper(Context context, int boardSize) {
+        this(boardSize, ContextCompat.getColor(context, R.color.cell_light), ContextCompat.getColor(context, R.color.cell_dark));
+    }
+
+    private ChessBoardHelper(int boardSize, int lightCellColor, int darkCellColor) {
+        this.boardSize = boardSize;
+        this.lightCellColor = lightCellColor;
+        this.darkCellColor = darkCellColor;
 
         this.boardCells = new ArrayList<>();
         boolean cellIsLightColored = true;
-        for(int row=0; row<CHESSBOARD_SIZE; row++){
-            for(int column = 0; column<CHESSBOARD_SIZE; column++){
+        for(int row=0; row<boardSize; row++){
+            for(int column = 0; column<boardSize; column++){
                 BoardCell boardCell = new BoardCell(row, column);
                 boardCell.setCellColor(cellIsLightColored ? lightCellColor : darkCellColor);
                 boardCells.add(boardCell);
                 cellIsLightColored = !cellIsLightColored;
             }
 
-            if(CHESSBOARD_SIZE%2==0) {
+            if(boardSize%2==0) {
                 //in chessboards with even number of cells the start
                 //of a row is the same color as the end of the above
                 cellIsLightColored = !cellIsLightColored;
@@ -102,6 +112,37 @@ public class ChessBoardHelper implements Parcelable {
                 pathPoints.add(pathPoint);
             }
         }
+        createDrawArrays();
+    }
+
+    private void createDrawArrays() {
+        int segmentCount = Math.max(pathPoints.size() - 1, 0);
+        int circleCount = 0;
+        for(PathPoint pathPoint:pathPoints){
+            if(pathPoint.isCircle()){
+                circleCount++;
+            }
+        }
+        pathLines = new float[segmentCount*4];
+        for(int i = 0; i<segmentCount; i++){
+            PathPoint p1 = pathPoints.get(i);
+            PathPoint p2 = pathPoints.get(i + 1);
+            pathLines[4*i] = p1.x;
+            pathLines[4*i + 1] = p1.y;
+            pathLines[4*i + 2] = p2.x;
+            pathLines[4*i + 3] = p2.y;
+        }
+        circlePoints = new float[circleCount*2];
+        circlePointIndexes = new int[circleCount];
+        int circle = 0;
+        for(int i = 0; i<pathPoints.size(); i++){
+            PathPoint pathPoint = pathPoints.get(i);
+            if(pathPoint.isCircle()){
+                circlePoints[2*circle] = pathPoint.x;
+                circlePoints[2*circle + 1] = pathPoint.y;
+                circlePointIndexes[circle++] = i;
+            }
+        }
     }
 
     /**
@@ -115,10 +156,10 @@ public class ChessBoardHelper implements Parcelable {
         int columnDif = endCell.getColumn()- startCell.getColumn();
         int indexOfInBetweenCell;
         if(Math.abs(rowDif)==2){
-            indexOfInBetweenCell = (startCell.getRow()+rowDif)*CHESSBOARD_SIZE + startCell.getColumn();
+            indexOfInBetweenCell = (startCell.getRow()+rowDif)*boardSize + startCell.getColumn();
         }
         else{
-            indexOfInBetweenCell = (startCell.getRow())*CHESSBOARD_SIZE + startCell.getColumn()+columnDif;
+            indexOfInBetweenCell = (startCell.getRow())*boardSize + startCell.getColumn()+columnDif;
         }
 
         return boardCells.get(indexOfInBetweenCell);
@@ -134,7 +175,7 @@ public class ChessBoardHelper implements Parcelable {
         ArrayList<BoardCell> chessBoardCells = new ArrayList<>();
         if(cellsWithoutRects!=null) {
             for (BoardCell pathCell : cellsWithoutRects) {
-                int indexInBoardCellsList = (pathCell.getRow()) * CHESSBOARD_SIZE + pathCell.getColumn();
+                int indexInBoardCellsList = (pathCell.getRow()) * boardSize + pathCell.getColumn();
                 chessBoardCells.add(boardCells.get(indexInBoardCellsList));
             }
         }
@@ -184,6 +225,9 @@ public class ChessBoardHelper implements Parcelable {
 
     void erasePathPoints() {
         pathPoints = null;
+        pathLines = null;
+        circlePoints = null;
+        circlePointIndexes = null;
         pathCells = null;
     }
 
@@ -220,6 +264,30 @@ public class ChessBoardHelper implements Parcelable {
     int getNumberOfPointsToDraw(){
         return pathPoints!=null ? (int) (pathPoints.size() * percentage -1) : 0;
     }
+
+    float[] getPathLines() {
+        return pathLines;
+    }
+
+    float[] getCirclePoints() {
+        return circlePoints;
+    }
+
+    /**
+     * @return how many circle points are among the first pointCount path points
+     */
+    int getCircleCount(int pointCount) {
+        int count = 0;
+        while (count<circlePointIndexes.length && circlePointIndexes[count]<pointCount){
+            count++;
+        }
+        return count;
+    }
+
+    int getBoardSize() {
+        return boardSize;
+    }
+
     ArrayList<BoardCell> getBoardCells() {
         return boardCells;
     }
@@ -232,26 +300,47 @@ public class ChessBoardHelper implements Parcelable {
         return percentage;
     }
 
-    //parcelable implementation
+    //parcelable implementation. Only the selections are written as square indexes, the board
+    //cells and their geometry are created again and the path points are calculated after layout
     private ChessBoardHelper(Parcel in) {
-        startCell = in.readParcelable(BoardCell.class.getClassLoader());
-        stopCell = in.readParcelable(BoardCell.class.getClassLoader());
-        CHESSBOARD_SIZE = in.readInt();
-        boardCells = in.createTypedArrayList(BoardCell.CREATOR);
-        pathCells = in.createTypedArrayList(BoardCell.CREATOR);
+        this(in.readInt(), in.readInt(), in.readInt());
+        startCell = cellAt(in.readInt());
+        stopCell = cellAt(in.readInt());
+        int[] pathSquares = in.createIntArray();
+        if(pathSquares != null){
+            pathCells = new ArrayList<>(pathSquares.length);
+            for(int square:pathSquares){
+                pathCells.add(cellAt(square));
+            }
+        }
         percentage = in.readFloat();
     }
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeParcelable(startCell, flags);
-        dest.writeParcelable(stopCell, flags);
-        dest.writeInt(CHESSBOARD_SIZE);
-        dest.writeTypedList(boardCells);
-        dest.writeTypedList(pathCells);
+        dest.writeInt(boardSize);
+        dest.writeInt(lightCellColor);
+        dest.writeInt(darkCellColor);
+        dest.writeInt(startCell != null ? startCell.toSquare(boardSize) : -1);
+        dest.writeInt(stopCell != null ? stopCell.toSquare(boardSize) : -1);
+        int[] pathSquares = null;
+        if(pathCells != null){
+            pathSquares = new int[pathCells.size()];
+            for(int i = 0; i<pathSquares.length; i++){
+                pathSquares[i] = pathCells.get(i).toSquare(boardSize);
+            }
+        }
+        dest.writeIntArray(pathSquares);
         dest.writeFloat(percentage);
     }
 
+    /**
+     * @return the cell of the board with this square index, or null for -1
+     */
+    private BoardCell cellAt(int square) {
+        return square >= 0 ? boardCells.get(square) : null;
+    }
+
     @Override
     public int describeContents() {
         return 0;
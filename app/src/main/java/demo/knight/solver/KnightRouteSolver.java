@@ -1,81 +1,287 @@
 package demo.knight.solver;
 
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import demo.knight.BuildConfig;
 import demo.knight.chessboard.BoardCell;
+import demo.knight.core.KnightRouteEngine;
+import demo.knight.core.PackedRoutes;
+import demo.knight.core.RouteCache;
+import demo.knight.core.RouteDatabase;
+import demo.knight.core.RouteResultSet;
+import demo.knight.core.RouteResultSetBuilder;
+import demo.knight.core.RouteSearch;
+import demo.knight.core.SolverStats;
+import demo.knight.core.SolverConfig;
 
+/**
+ * Adapter between the ChessBoard view classes and the knight-core {@link KnightRouteEngine}
+ * that works with int encoded squares.
+ */
 public class KnightRouteSolver {
 
-    public static int MAX_STEPS = 4;
-    private ArrayList<BoardCell> results = new ArrayList<>();
+    public interface SolveRouteCallback {
+        //all methods are called on the main thread and never for a query that was replaced or cancelled
+        void onSolutionsFound(List<Solution> solutions);
+        void onProgress(int routeLength, int maxSteps);
+        void onSolveFinished();
+    }
+
+    public interface SolveShortestRoutesCallback {
+        //called on the main thread, never for a query that was replaced or cancelled
+        void onShortestRoutesFound(List<Solution> shortestRoutes);
+    }
+
+    public static final int DEFAULT_MAX_STEPS = 4;
+    private static final int SOLUTIONS_BATCH_SIZE = 200;
+    //solutions of a batch that take more are kept in a memory mapped file
+    private static final long SOLUTIONS_MEMORY_BYTES = 64*1024;
+    private static final long ROUTE_CACHE_BYTES = 4*1024*1024;
+    //generated by the generateRouteDatabase gradle task for the default board size and DEFAULT_MAX_STEPS
+    private static final String ROUTE_DATABASE_ASSET = "routes-8x8-4.bin";
+
+    //shared by all solvers so that solved queries survive activity recreation
+    private static final RouteCache routeCache = new RouteCache(ROUTE_CACHE_BYTES);
 
-    public ArrayList<Solution> solveRoute(BoardCell start, BoardCell end){
+    //a single background thread, so a new query starts only after the cancelled one has stopped
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
 
-        results = new ArrayList<>();
+    //precomputed routes, queries it supports are answered without searching. Null if it could not be loaded
+    private static RouteDatabase routeDatabase; //only read and written in loadRouteDatabase
+    private static boolean routeDatabaseLoaded;
+    private static final SolverTrace SOLVER_TRACE = new SolverTrace();
 
-        solveRouteRecursively(start, end, 0);
+    private final Context context; //the application context, the database is loaded with it on the solver thread
+    private Handler mainHandler = new Handler(Looper.getMainLooper());
+    private RouteSearch currentSearch;
+    private boolean solvingShortestRoutes;
+    private int currentQueryId; //only the query with this id may deliver results
+
+    public KnightRouteSolver(Context context){
+        this.context = context.getApplicationContext();
+        if(BuildConfig.DEBUG){
+            //stats cost a clock read per route, release builds leave them off
+            SolverStats.setListener(SOLVER_TRACE);
+        }
+    }
 
-        ArrayList<Solution> solutions = new ArrayList<>();
-        for(BoardCell result:results){
-            ArrayList<BoardCell> history = result.getHistory();
-            if(!pathHasCircles(history)) {
-                //only add paths without circles because if we remove the unnecessary
-                //circle the remaining path would already exist in the results list
-                //It is more efficient (execution time wise) to remove these paths after
-                //calculating them than not adding them in the results in the first place.
-                solutions.add(new Solution(history));
+    /**
+     * Memory maps the route database asset the first time it is called. Only its header is read, the routes
+     * are paged in when a query needs them
+     *
+     * @return the database, or null if it could not be loaded
+     */
+    @WorkerThread
+    private static synchronized RouteDatabase loadRouteDatabase(Context context){
+        if(routeDatabaseLoaded){
+            return routeDatabase;
+        }
+        routeDatabaseLoaded = true;
+        try {
+            AssetFileDescriptor descriptor = context.getAssets().openFd(ROUTE_DATABASE_ASSET);
+            try {
+                FileChannel channel = descriptor.createInputStream().getChannel();
+                routeDatabase = new RouteDatabase(channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
             }
+            finally {
+                descriptor.close();
+            }
+        } catch (IOException e) {
+            //missing or compressed asset, every query is searched
+            routeDatabase = null;
         }
-        results.clear();
+        return routeDatabase;
+    }
 
-        //sort solutions with faster first
-        Collections.sort(solutions, new Comparator<Solution>() {
+    /**
+     * @param config only square boards are supported by the ChessBoard view
+     * @param limit  the most solutions returned. The search stops once it has found the first ones, see {@link KnightRouteEngine#solveRoute(SolverConfig, int, int, int)}
+     */
+    @WorkerThread
+    public ArrayList<Solution> solveRoute(SolverConfig config, BoardCell start, BoardCell end, int limit){
+        int boardSize = config.getWidth();
+        RouteDatabase routeDatabase = loadRouteDatabase(context);
+        List<int[]> routes = routeDatabase != null && routeDatabase.supports(config)
+                ? routeDatabase.solveRoute(config, start.toSquare(boardSize), end.toSquare(boardSize), limit)
+                : routeCache.solveRoute(config, start.toSquare(boardSize), end.toSquare(boardSize), limit);
+        return toSolutions(routes, boardSize);
+    }
 
+    /**
+     * @param limit the most solutions returned, large boards can have billions of shortest routes
+     * @return only the routes with the fewest moves, even if they need more moves than the step limit of config
+     */
+    @WorkerThread
+    public ArrayList<Solution> solveShortestRoutes(SolverConfig config, BoardCell start, BoardCell end, int limit){
+        int boardSize = config.getWidth();
+        List<int[]> routes = new KnightRouteEngine().solveShortestRoutes(config, start.toSquare(boardSize), end.toSquare(boardSize), limit);
+        return toSolutions(routes, boardSize);
+    }
 
+    /**
+     * Finds the first limit shortest routes on the background thread. Cancels the previous query
+     * if it is still running. Must be called on the main thread.
+     */
+    public void solveShortestRoutesAsync(final SolverConfig config, final BoardCell start, final BoardCell end, final int limit, final SolveShortestRoutesCallback callback){
+        cancel();
+        final int queryId = currentQueryId;
+        solvingShortestRoutes = true;
+        executor.execute(new Runnable() {
             @Override
-            public int compare(Solution s1, Solution s2) {
-                return Integer.compare(s1.getNumberOfMoves(), s2.getNumberOfMoves());
+            public void run() {
+                final ArrayList<Solution> shortestRoutes = solveShortestRoutes(config, start, end, limit);
+                postIfCurrent(queryId, new Runnable() {
+                    @Override
+                    public void run() {
+                        solvingShortestRoutes = false;
+                        callback.onShortestRoutesFound(shortestRoutes);
+                    }
+                });
             }
         });
+    }
 
-        return solutions;
+    /**
+     * Solves the route on a background thread and stops after limit solutions. Cancels the previous
+     * query if it is still running. Must be called on the main thread.
+     */
+    public void solveRouteAsync(final SolverConfig config, final BoardCell start, final BoardCell end, final int limit, final SolveRouteCallback callback){
+        cancel();
+        final int queryId = currentQueryId;
+        final int boardSize = config.getWidth();
+        final RouteSearch search = new RouteSearch(config, start.toSquare(boardSize), end.toSquare(boardSize), limit, SOLUTIONS_BATCH_SIZE, routeCache, new RouteSearch.Listener() {
+            @Override
+            public void onRoutesFound(List<int[]> routes) {
+                //Solutions are created on the background thread
+                final ArrayList<Solution> solutions = toSolutions(routes, boardSize);
+                postIfCurrent(queryId, new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onSolutionsFound(solutions);
+                    }
+                });
+            }
+
+            @Override
+            public void onProgress(final int routeLength, final int maxSteps) {
+                postIfCurrent(queryId, new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onProgress(routeLength, maxSteps);
+                    }
+                });
+            }
+
+            @Override
+            public void onSearchFinished(boolean cancelled) {
+                postIfCurrent(queryId, new Runnable() {
+                    @Override
+                    public void run() {
+                        currentSearch = null;
+                        callback.onSolveFinished();
+                    }
+                });
+            }
+        });
+        currentSearch = search;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                RouteDatabase routeDatabase = loadRouteDatabase(context);
+                if(routeDatabase == null || !routeDatabase.supports(config)){
+                    search.run();
+                    return;
+                }
+                //precomputed routes only need decoding, they are handed over at once
+                final ArrayList<Solution> solutions = toSolutions(routeDatabase.solveRoute(config, start.toSquare(boardSize), end.toSquare(boardSize), limit), boardSize);
+                postIfCurrent(queryId, new Runnable() {
+                    @Override
+                    public void run() {
+                        currentSearch = null;
+                        callback.onSolutionsFound(solutions);
+                        callback.onProgress(config.getMaxSteps(), config.getMaxSteps());
+                        callback.onSolveFinished();
+                    }
+                });
+            }
+        });
     }
 
-    private void solveRouteRecursively(BoardCell startCell, BoardCell endCell, int step) {
-        step++;
-        if(step>MAX_STEPS){
-            return;
+    /**
+     * Stops the running query. Its callback will not be called again. Must be called on the main thread.
+     */
+    public void cancel(){
+        currentQueryId++;
+        solvingShortestRoutes = false;
+        if(currentSearch!=null){
+            currentSearch.cancel();
+            currentSearch = null;
         }
-        ArrayList<BoardCell> knightPossibleMovements = startCell.getAllValidKnightDestinations();
-        for(BoardCell knightPossibleMove:knightPossibleMovements){
-            //store in each BoardCell the cell from which the knight moved here.
-            //when we reach the endCell it will know the entire path the knight followed
-            knightPossibleMove.setPreviousBoardCell(startCell);
-            if(knightPossibleMove.equals(endCell)){
-                results.add(knightPossibleMove);
-            }
-            else {
-                solveRouteRecursively(knightPossibleMove, endCell, step);
+    }
+
+    public boolean isSolving(){
+        return currentSearch!=null || solvingShortestRoutes;
+    }
+
+    private void postIfCurrent(final int queryId, final Runnable runnable){
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                //a query that was replaced or cancelled must never overwrite the results of a newer one
+                if(queryId == currentQueryId){
+                    runnable.run();
+                }
             }
+        });
+    }
+
+    /**
+     * the routes are packed in a single result set that all the solutions share
+     */
+    @WorkerThread
+    private ArrayList<Solution> toSolutions(List<int[]> routes, int boardSize){
+        RouteResultSet resultSet = toResultSet(routes);
+        ArrayList<Solution> solutions = new ArrayList<>(routes.size());
+        for(int i = 0; i<resultSet.size(); i++){
+            solutions.add(new Solution(resultSet, i, boardSize));
         }
+        return solutions;
     }
 
     /**
-     * check if path has cells that appear more than once. That would mean that
-     * if the knight follows this path he would walk in a circle at least once
+     * @return the routes on the heap, or memory mapped from the cache directory if they take more than
+     *         {@link #SOLUTIONS_MEMORY_BYTES}, so long routes kept by the list do not grow the heap
      */
-    private boolean pathHasCircles(ArrayList<BoardCell> cellsPath){
-        for(int i=0; i<cellsPath.size(); i++){
-            for(int j = i; j<cellsPath.size(); j++){
-                if(i!=j){
-                    if(cellsPath.get(i).equals(cellsPath.get(j))){
-                        return true;
-                    }
-                }
+    @WorkerThread
+    private RouteResultSet toResultSet(List<int[]> routes){
+        int maxSquares = 1;
+        for(int[] route:routes){
+            maxSquares = Math.max(maxSquares, route.length);
+        }
+        RouteResultSetBuilder builder = new RouteResultSetBuilder(maxSquares, SOLUTIONS_MEMORY_BYTES, context.getCacheDir());
+        try {
+            try {
+                builder.addAll(routes.iterator());
+                return builder.build();
+            }
+            finally {
+                //the file is deleted at once, a mapping stays readable until its solutions are dropped
+                builder.close();
             }
+        } catch (IOException e) {
+            //no room in the cache directory
+            return PackedRoutes.pack(routes);
         }
-        return false;
     }
 }
@@ -0,0 +1,107 @@
+package demo.knight.solver;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.WorkerThread;
+
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import demo.knight.chessboard.BoardCell;
+import demo.knight.core.KnightTourEngine;
+import demo.knight.core.PackedRoutes;
+import demo.knight.core.SolverConfig;
+
+/**
+ * Adapter between the ChessBoard view classes and the knight-core {@link KnightTourEngine}.
+ * Tours are returned as a {@link Solution} so that ChessBoard.animatePath can play them like routes.
+ */
+public class KnightTourSolver {
+
+    public interface SolveTourCallback {
+        //called on the main thread, never for a query that was replaced or cancelled
+        void onTourFound(Solution tour);
+        void onTourNotFound(boolean timedOut);
+    }
+
+    public static final long TOUR_TIME_BUDGET_MILLIS = 5000;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int currentQueryId; //only the query with this id may deliver results
+    private KnightTourEngine currentEngine; //engine of the last query, stopped when it is replaced or cancelled
+
+    /**
+     * @param length number of squares of the tour, start included. Full tours land on every square of the board
+     * @param closed if true the tour ends a single move away from start
+     * @return the tour, or null if there is none
+     * @throws TimeoutException if no tour was found in {@link #TOUR_TIME_BUDGET_MILLIS}
+     */
+    @WorkerThread
+    public Solution solveTour(SolverConfig config, BoardCell start, int length, boolean closed) throws TimeoutException {
+        return solveTour(new KnightTourEngine(), config, start, length, closed);
+    }
+
+    @WorkerThread
+    private Solution solveTour(KnightTourEngine engine, SolverConfig config, BoardCell start, int length, boolean closed) throws TimeoutException {
+        int boardSize = config.getWidth();
+        int[] tour = engine.findTour(config, start.toSquare(boardSize), length, closed, TOUR_TIME_BUDGET_MILLIS);
+        return tour != null ? new Solution(PackedRoutes.pack(Collections.singletonList(tour)), 0, boardSize) : null;
+    }
+
+    /**
+     * Finds the tour on a background thread. Replaces the previous query. Must be called on the main thread.
+     */
+    public void solveTourAsync(final SolverConfig config, final BoardCell start, final int length, final boolean closed, final SolveTourCallback callback){
+        //the executor has a single thread, the previous search must not hold up this one
+        cancel();
+        final int queryId = ++currentQueryId;
+        final KnightTourEngine engine = new KnightTourEngine();
+        currentEngine = engine;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Solution tour = null;
+                boolean timedOut = false;
+                try {
+                    tour = solveTour(engine, config, start, length, closed);
+                } catch (TimeoutException e) {
+                    timedOut = true;
+                } catch (CancellationException e) {
+                    return;
+                }
+                final Solution foundTour = tour;
+                final boolean tourTimedOut = timedOut;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(queryId != currentQueryId){
+                            return;
+                        }
+                        if(foundTour != null){
+                            callback.onTourFound(foundTour);
+                        }
+                        else {
+                            callback.onTourNotFound(tourTimedOut);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Stops the running query and drops its result. Must be called on the main thread.
+     */
+    public void cancel(){
+        currentQueryId++;
+        if(currentEngine != null){
+            currentEngine.cancel();
+            currentEngine = null;
+        }
+    }
+}
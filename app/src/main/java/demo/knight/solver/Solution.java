@@ -4,39 +4,56 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 
 import demo.knight.chessboard.BoardCell;
+import demo.knight.core.PackedRoutes;
+import demo.knight.core.RouteResultSet;
 
 public class Solution implements Parcelable {
 
     private boolean isForText; //if true it is a dummy Solution object to make RecyclerView show a text
-    private ArrayList<BoardCell> cellsPath;
-    private int numberOfMoves;
-    private String description;
+    //the route is kept as square indexes in a result set shared by many solutions, on the heap
+    //or in a memory mapped file. BoardCells and the description are only created when they are needed
+    private RouteResultSet routes;
+    private int routeIndex;
+    private int boardSize;
+    private String message;
     private boolean isSelected;
 
-    Solution(ArrayList<BoardCell> cellsPath) {
-        this.cellsPath = cellsPath;
-        numberOfMoves = cellsPath.size() - 1;
-        description = cellsPath.toString().replace("[","").replace("]","");
+    Solution(RouteResultSet routes, int routeIndex, int boardSize) {
+        this.routes = routes;
+        this.routeIndex = routeIndex;
+        this.boardSize = boardSize;
     }
 
     public Solution(String message){
-        this.description = message;
+        this.message = message;
         isForText = true;
     }
 
     //setters - getters
+
+    /**
+     * @return a new list with the BoardCells of the route, or null for text solutions
+     */
     public ArrayList<BoardCell> getCellsPath() {
-        return cellsPath;
+        if(isForText){
+            return null;
+        }
+        ArrayList<BoardCell> cells = new ArrayList<>(routes.getSquareCount(routeIndex));
+        for(int i = 0; i<routes.getSquareCount(routeIndex); i++){
+            cells.add(BoardCell.fromSquare(routes.getSquare(routeIndex, i), boardSize));
+        }
+        return cells;
     }
 
-    int getNumberOfMoves() {
-        return numberOfMoves;
+    public int getNumberOfMoves() {
+        return isForText ? 0 : routes.getSquareCount(routeIndex) - 1;
     }
 
     public String getDescription() {
-        return description;
+        return isForText ? message : routes.describe(routeIndex, boardSize, boardSize);
     }
 
     public boolean isSelected() {
@@ -53,11 +70,15 @@ public class Solution implements Parcelable {
 
     //parcelable implementation
     private Solution(Parcel in) {
-        cellsPath = in.createTypedArrayList(BoardCell.CREATOR);
-        numberOfMoves = in.readInt();
-        description = in.readString();
         isSelected = in.readByte() != 0;
         isForText = in.readByte() != 0;
+        if(isForText){
+            message = in.readString();
+        }
+        else {
+            boardSize = in.readInt();
+            routes = PackedRoutes.pack(Collections.singletonList(in.createIntArray()));
+        }
     }
 
     public static final Creator<Solution> CREATOR = new Creator<Solution>() {
@@ -79,10 +100,14 @@ public class Solution implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeTypedList(cellsPath);
-        dest.writeInt(numberOfMoves);
-        dest.writeString(description);
         dest.writeByte((byte) (isSelected ? 1 : 0));
         dest.writeByte((byte) (isForText ? 1 : 0));
+        if(isForText){
+            dest.writeString(message);
+        }
+        else {
+            dest.writeInt(boardSize);
+            dest.writeIntArray(routes.getRoute(routeIndex));
+        }
     }
 }
@@ -0,0 +1,37 @@
+package demo.knight.solver;
+
+import android.os.Trace;
+
+import demo.knight.core.SolverStats;
+
+/**
+ * Shows the phases of every route query as sections of systrace and perfetto traces, like
+ * "knight:SEARCH". The search of a route iterator is a section per route length, not per route.
+ * It is only installed in debug builds, android.os.Trace can not tell whether a trace is recorded before API 29.
+ */
+class SolverTrace implements SolverStats.Listener {
+
+    //built once, so no phase event allocates
+    private static final String[] SECTION_NAMES = new String[SolverStats.Phase.values().length];
+
+    static {
+        for(SolverStats.Phase phase:SolverStats.Phase.values()){
+            SECTION_NAMES[phase.ordinal()] = "knight:" + phase.name();
+        }
+    }
+
+    @Override
+    public void onPhaseStarted(SolverStats.Phase phase) {
+        Trace.beginSection(SECTION_NAMES[phase.ordinal()]);
+    }
+
+    @Override
+    public void onPhaseFinished(SolverStats.Phase phase) {
+        Trace.endSection();
+    }
+
+    @Override
+    public void onQueryFinished(SolverStats stats) {
+        //the counts are for JVM batch runs, traces only need the phases
+    }
+}
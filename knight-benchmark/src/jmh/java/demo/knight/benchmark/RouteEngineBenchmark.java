@@ -0,0 +1,80 @@
+package demo.knight.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import demo.knight.core.BidirectionalRouteEngine;
+import demo.knight.core.KnightRouteEngine;
+import demo.knight.core.ParallelRouteEngine;
+import demo.knight.core.RouteCounter;
+import demo.knight.core.RouteIterator;
+import demo.knight.core.RouteView;
+import demo.knight.core.RouteVisitor;
+
+/**
+ * Solves the same {@link RouteQuery} with every engine of knight-core. KnightRouteEngine.solveRoute
+ * is what KnightRouteSolver.solveRoute runs in the app, the other engines are compared against it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteEngineBenchmark {
+
+    @Benchmark
+    public List<int[]> solveRoute(RouteQuery query) {
+        return new KnightRouteEngine().solveRoute(query.config, query.start, query.end);
+    }
+
+    @Benchmark
+    public List<int[]> solveRouteBidirectional(RouteQuery query) {
+        return new BidirectionalRouteEngine().solveRoute(query.config, query.start, query.end);
+    }
+
+    @Benchmark
+    public List<int[]> solveRouteParallel(RouteQuery query) {
+        return new ParallelRouteEngine().solveRoute(query.config, query.start, query.end);
+    }
+
+    /**
+     * the routes are handed over one at a time and never kept, like RouteSearch does
+     */
+    @Benchmark
+    public void iterateRoutes(RouteQuery query, Blackhole blackhole) {
+        RouteIterator routes = new KnightRouteEngine().iterateRoutes(query.config, query.start, query.end);
+        while (routes.hasNext()){
+            blackhole.consume(routes.next());
+        }
+    }
+
+    /**
+     * the routes are only shown to a visitor, nothing is allocated per route
+     */
+    @Benchmark
+    public long visitRoutes(RouteQuery query) {
+        final long[] squares = new long[1];
+        new KnightRouteEngine().visitRoutes(query.config, query.start, query.end, new RouteVisitor() {
+            @Override
+            public boolean visit(RouteView route) {
+                squares[0] += route.getSquareCount();
+                return true;
+            }
+        });
+        return squares[0];
+    }
+
+    @Benchmark
+    public long countRoutes(RouteQuery query) {
+        return new RouteCounter().countRoutes(query.config, query.start, query.end);
+    }
+}
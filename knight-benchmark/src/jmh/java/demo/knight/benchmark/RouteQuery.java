@@ -0,0 +1,62 @@
+package demo.knight.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import demo.knight.core.SolverConfig;
+
+/**
+ * The query every benchmark solves: a board size, a step limit and where on the board the route
+ * starts. The end square is two knight moves away from the start, two rows and a column and then a
+ * row and two columns, each towards the inside of the board where it would leave it. So the shortest
+ * route has two moves on every board and the number of routes grows quickly with the step limit.
+ */
+@State(Scope.Benchmark)
+public class RouteQuery {
+
+    public enum Pair {
+        CORNER, EDGE, CENTER
+    }
+
+    @Param({"5", "8", "16", "32"})
+    public int boardSize;
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10"})
+    public int maxSteps;
+
+    @Param({"CORNER", "EDGE", "CENTER"})
+    public Pair pair;
+
+    public SolverConfig config;
+    public int start, end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        config = SolverConfig.square(boardSize, maxSteps);
+        int row = pair == Pair.CENTER ? boardSize/2 : 0;
+        int column = pair == Pair.CORNER ? 0 : boardSize/2;
+        start = config.squareAt(row, column);
+        row = towardsInside(towardsInside(row, 2), 1);
+        column = towardsInside(towardsInside(column, 1), 2);
+        if(row<0 || column<0){
+            throw new IllegalStateException(boardSize + "x" + boardSize + " is too small for the " + pair + " query");
+        }
+        end = config.squareAt(row, column);
+        //the move table and the distance maps are built once per board, outside of the measurements
+        int distance = config.getDistanceMap(end).getDistance(start);
+        if(distance != 2 || distance>maxSteps){
+            //a query that can not be solved would only measure an early return, other distances would not compare across boards
+            throw new IllegalStateException(pair + " on " + boardSize + "x" + boardSize + ": " + config.toAlgebraic(end) + " is " + distance + " moves from " + config.toAlgebraic(start));
+        }
+    }
+
+    /**
+     * @return coordinate moved by offset, or back by offset if that would leave the board
+     */
+    private int towardsInside(int coordinate, int offset) {
+        return coordinate + offset<boardSize ? coordinate + offset : coordinate - offset;
+    }
+}
@@ -0,0 +1,175 @@
+package demo.knight.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the same routes as {@link KnightRouteEngine}, in the same order, by meeting in the middle.
+ *
+ * For every route length the first half of the route is searched from the start square and the
+ * second half from the end square. Second halves are indexed by the square they meet the first
+ * half on, and each first half is joined with every second half of its last square that does
+ * not land on a square the first half already used. A one sided search grows like 8^length,
+ * while this grows like 8^(length/2), which makes long step limits feasible.
+ */
+public class BidirectionalRouteEngine {
+
+    private KnightMoveTable moveTable;
+    private RouteOrder routeOrder;
+    private int[] distancesToStart, distancesToEnd;
+    private int routeLength, firstHalfLength;
+
+    private int[] path;
+    private long[] visited; //squares of the current first half
+    private int[] secondHalfPath;
+    private long[] secondHalfVisited;
+    private ArrayList<int[]>[] secondHalves; //second halves indexed by their first square
+
+    private ArrayList<int[]> results = new ArrayList<>();
+
+    /**
+     * @return every route as an array of squares (start and end included), with the routes
+     *         that need the fewest moves first
+     */
+    public List<int[]> solveRoute(SolverConfig config, int start, int end) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        moveTable = config.getMoveTable();
+        int maxSteps = config.getMaxSteps();
+        results = new ArrayList<>();
+
+        DistanceMap distanceMap = config.getDistanceMap(end);
+        int shortestRouteLength = distanceMap.getDistance(start);
+        if(start == end || shortestRouteLength>maxSteps){
+            return results;
+        }
+        routeOrder = new RouteOrder(moveTable);
+        distancesToEnd = distanceMap.distances;
+        distancesToStart = config.getDistanceMap(start).distances;
+        path = new int[maxSteps + 1];
+        secondHalfPath = new int[maxSteps + 1];
+        visited = new long[moveTable.getWordCount()];
+        secondHalfVisited = new long[moveTable.getWordCount()];
+
+        //every knight move changes the color of the square the knight stands on, so
+        //all routes have the same parity as the shortest one, see KnightMoveTable.isBipartite
+        for(int length = shortestRouteLength; length<=maxSteps; length+=moveTable.routeLengthStep()){
+            routeLength = length;
+            firstHalfLength = (length + 1)/2;
+
+            collectSecondHalves(start, end, length - firstHalfLength);
+
+            path[0] = start;
+            BitBoard.add(visited, 0, start);
+            searchFirstHalves(end, 0);
+            BitBoard.remove(visited, 0, start);
+        }
+
+        ArrayList<int[]> routes = results;
+        results = new ArrayList<>();
+        secondHalves = null;
+        return routes;
+    }
+
+    private void collectSecondHalves(int start, int end, int secondHalfLength) {
+        //generic arrays can only be created raw
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayList<int[]>[] halvesBySquare = new ArrayList[moveTable.getSquareCount()];
+        secondHalves = halvesBySquare;
+        secondHalfPath[0] = end;
+        BitBoard.add(secondHalfVisited, 0, end);
+        searchSecondHalves(start, 0, secondHalfLength);
+        BitBoard.remove(secondHalfVisited, 0, end);
+
+        //second halves were found walking backwards from the end square. Put the ones
+        //of each middle square in the order a search from the start square would find them
+        for(ArrayList<int[]> halves:secondHalves){
+            if(halves!=null && halves.size()>1){
+                Collections.sort(halves, routeOrder);
+            }
+        }
+    }
+
+    /**
+     * @param step how many moves back from the end square secondHalfPath[step] is
+     */
+    private void searchSecondHalves(int start, int step, int secondHalfLength) {
+        int square = secondHalfPath[step];
+        if(step == secondHalfLength){
+            //store the half in the direction the knight moves
+            int[] half = new int[step + 1];
+            for(int i = 0; i<=step; i++){
+                half[i] = secondHalfPath[step - i];
+            }
+            if(secondHalves[square] == null){
+                secondHalves[square] = new ArrayList<>();
+            }
+            secondHalves[square].add(half);
+            return;
+        }
+        int[] moves = moveTable.moves;
+        for(int i = moveTable.firstMove(square), end = moveTable.endMove(square); i<end; i++){
+            int previousSquare = moves[i];
+            //the start square belongs to the first half. The square also has to be
+            //reachable from the start square with the moves left to the first half
+            if(previousSquare == start
+                    || BitBoard.contains(secondHalfVisited, 0, previousSquare)
+                    || distancesToStart[previousSquare] > routeLength - step - 1){
+                continue;
+            }
+            secondHalfPath[step+1] = previousSquare;
+            BitBoard.add(secondHalfVisited, 0, previousSquare);
+            searchSecondHalves(start, step+1, secondHalfLength);
+            BitBoard.remove(secondHalfVisited, 0, previousSquare);
+        }
+    }
+
+    private void searchFirstHalves(int endSquare, int step) {
+        int square = path[step];
+        if(step == firstHalfLength){
+            joinWithSecondHalves(square);
+            return;
+        }
+        int[] moves = moveTable.moves;
+        for(int i = moveTable.firstMove(square), end = moveTable.endMove(square); i<end; i++){
+            int nextSquare = moves[i];
+            //the end square can only be the last square of the route
+            if(BitBoard.contains(visited, 0, nextSquare)
+                    || (nextSquare == endSquare && step + 1 != routeLength)
+                    || distancesToEnd[nextSquare] > routeLength - step - 1){
+                continue;
+            }
+            path[step+1] = nextSquare;
+            BitBoard.add(visited, 0, nextSquare);
+            searchFirstHalves(endSquare, step+1);
+            BitBoard.remove(visited, 0, nextSquare);
+        }
+    }
+
+    private void joinWithSecondHalves(int middleSquare) {
+        ArrayList<int[]> halves = secondHalves[middleSquare];
+        if(halves == null){
+            return;
+        }
+        for(int[] half:halves){
+            if(sharesSquareWithFirstHalf(half)){
+                continue;
+            }
+            int[] route = new int[routeLength + 1];
+            System.arraycopy(path, 0, route, 0, firstHalfLength);
+            System.arraycopy(half, 0, route, firstHalfLength, half.length);
+            results.add(route);
+        }
+    }
+
+    private boolean sharesSquareWithFirstHalf(int[] half) {
+        //half[0] is the middle square that both halves share
+        for(int i = 1; i<half.length; i++){
+            if(BitBoard.contains(visited, 0, half[i])){
+                return true;
+            }
+        }
+        return false;
+    }
+}
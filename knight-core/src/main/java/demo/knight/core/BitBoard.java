@@ -0,0 +1,33 @@
+package demo.knight.core;
+
+/**
+ * Helper methods for square sets stored as bits in long arrays. One long holds 64 squares,
+ * so boards with up to 64 squares use a single long per set.
+ */
+public class BitBoard {
+
+    private BitBoard() {
+    }
+
+    /**
+     * @return how many longs are needed to hold one bit per square
+     */
+    public static int wordCount(int squareCount) {
+        return (squareCount + 63) >>> 6;
+    }
+
+    /**
+     * @param offset index of the first word of the set inside bits. Allows many sets to share one array
+     */
+    public static boolean contains(long[] bits, int offset, int square) {
+        return (bits[offset + (square >>> 6)] & (1L << square)) != 0;
+    }
+
+    public static void add(long[] bits, int offset, int square) {
+        bits[offset + (square >>> 6)] |= 1L << square;
+    }
+
+    public static void remove(long[] bits, int offset, int square) {
+        bits[offset + (square >>> 6)] &= ~(1L << square);
+    }
+}
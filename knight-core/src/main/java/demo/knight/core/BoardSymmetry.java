@@ -0,0 +1,68 @@
+package demo.knight.core;
+
+/**
+ * The 8 symmetries of a square board: rotations by 0, 90, 180 and 270 degrees and the
+ * reflections over the vertical, horizontal and two diagonal axes. The moves of the knight and
+ * of every other {@link Leaper} look the same after any of them, so a symmetry maps the routes
+ * between two squares to the routes between the two mapped squares. Boards that are not square only have the 4 symmetries that keep
+ * rows as rows.
+ */
+public enum BoardSymmetry {
+
+    IDENTITY, ROTATE_90, ROTATE_180, ROTATE_270, MIRROR_COLUMNS, MIRROR_ROWS, TRANSPOSE, ANTI_TRANSPOSE;
+
+    /**
+     * @return true if this is a symmetry of a width x height board
+     */
+    public boolean isSymmetryOf(int width, int height) {
+        switch (this){
+            case ROTATE_90:
+            case ROTATE_270:
+            case TRANSPOSE:
+            case ANTI_TRANSPOSE:
+                return width == height;
+            default:
+                return true;
+        }
+    }
+
+    public int apply(int square, int width, int height) {
+        int row = Squares.row(square, width);
+        int column = Squares.column(square, width);
+        int lastRow = height - 1;
+        int lastColumn = width - 1;
+        //symmetries that turn rows into columns only exist when width == height
+        switch (this){
+            case ROTATE_90:
+                return Squares.index(column, lastRow - row, width);
+            case ROTATE_180:
+                return Squares.index(lastRow - row, lastColumn - column, width);
+            case ROTATE_270:
+                return Squares.index(lastColumn - column, row, width);
+            case MIRROR_COLUMNS:
+                return Squares.index(row, lastColumn - column, width);
+            case MIRROR_ROWS:
+                return Squares.index(lastRow - row, column, width);
+            case TRANSPOSE:
+                return Squares.index(column, row, width);
+            case ANTI_TRANSPOSE:
+                return Squares.index(lastColumn - column, lastRow - row, width);
+            default:
+                return square;
+        }
+    }
+
+    /**
+     * @return the symmetry that undoes this one
+     */
+    public BoardSymmetry inverse() {
+        switch (this){
+            case ROTATE_90:
+                return ROTATE_270;
+            case ROTATE_270:
+                return ROTATE_90;
+            default:
+                return this;
+        }
+    }
+}
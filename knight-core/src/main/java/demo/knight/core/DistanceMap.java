@@ -0,0 +1,57 @@
+package demo.knight.core;
+
+import java.util.Arrays;
+
+/**
+ * Exact number of knight moves needed to reach a target square from every square of the board,
+ * calculated with a single breadth first search from the target.
+ */
+public final class DistanceMap {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int target;
+    final int[] distances;
+
+    private DistanceMap(KnightMoveTable moveTable, int target) {
+        this.target = target;
+        distances = new int[moveTable.getSquareCount()];
+        Arrays.fill(distances, UNREACHABLE);
+
+        int[] moves = moveTable.moves;
+        int[] queue = new int[distances.length];
+        int head = 0, tail = 0;
+        distances[target] = 0;
+        queue[tail++] = target;
+        while (head<tail){
+            int square = queue[head++];
+            int nextDistance = distances[square] + 1;
+            for(int i = moveTable.firstMove(square), end = moveTable.endMove(square); i<end; i++){
+                int neighbour = moves[i];
+                if(distances[neighbour] == UNREACHABLE){
+                    distances[neighbour] = nextDistance;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+    }
+
+    /**
+     * knight moves are symmetric, so the distances from every square to target are
+     * the same as the distances from target to every square
+     */
+    public static DistanceMap toSquare(KnightMoveTable moveTable, int target) {
+        return new DistanceMap(moveTable, target);
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the minimum number of moves from square to the target or {@link #UNREACHABLE}
+     */
+    public int getDistance(int square) {
+        return distances[square];
+    }
+}
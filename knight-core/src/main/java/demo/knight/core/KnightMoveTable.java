@@ -0,0 +1,369 @@
+package demo.knight.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed moves of a {@link Leaper}, the knight by default, for every square of a board.
+ * Built once per piece and board size and cached, so that the search never has to allocate or
+ * bounds check while generating moves.
+ *
+ * The destinations of all squares are kept in a flat adjacency list. The destinations
+ * of square s are moves[moveOffsets[s]] up to moves[moveOffsets[s+1]-1]. The list grows
+ * linearly with the number of squares, so large boards are cheap too.
+ *
+ * Small boards also keep the destinations of each square as a bitboard (see {@link BitBoard}),
+ * so {@link #isMove} is a single bit test. These masks grow with the square of the number of
+ * squares, so large boards scan the adjacency list instead.
+ */
+public final class KnightMoveTable {
+
+    //distance maps are kept for boards up to this size. Keeping them for larger boards would take too much memory
+    private static final int MAX_SQUARES_WITH_CACHED_DISTANCES = 1024;
+    //destination masks are kept for boards up to this size, 128KB at most
+    private static final int MAX_SQUARES_WITH_DESTINATION_MASKS = 1024;
+
+    //tables with blocked squares are kept for the boards used last, so configs that differ only in their step limit share them
+    private static final int MAX_CACHED_BLOCKED_TABLES = 8;
+
+    private static final HashMap<Leaper, HashMap<Long, KnightMoveTable>> tables = new HashMap<>();
+    private static final LinkedHashMap<BlockedBoard, KnightMoveTable> blockedTables = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Leaper leaper;
+    private final int width, height;
+    private final int squareCount;
+    private final int wordCount;
+    final int[] moveOffsets;
+    final int[] moves;
+    final long[] destinations; //bitboard of the destinations of square s at s*wordCount, null on large boards
+    private final byte[] colors; //1 or 2 for every square, see colorSquares. Null if the table is not bipartite
+    private final boolean bipartite;
+    private final AtomicReferenceArray<DistanceMap> distanceMaps;
+
+    private KnightMoveTable(Leaper leaper, int width, int height) {
+        this.leaper = leaper;
+        this.width = width;
+        this.height = height;
+        squareCount = width*height;
+        wordCount = BitBoard.wordCount(squareCount);
+        moveOffsets = new int[squareCount + 1];
+
+        int[] allMoves = new int[squareCount*leaper.getMoveCount()];
+        int moveCount = 0;
+        for(int square = 0; square<squareCount; square++){
+            moveOffsets[square] = moveCount;
+            int row = Squares.row(square, width);
+            int column = Squares.column(square, width);
+            //destinations are listed in the order of the leaper's moves
+            for(int i = 0; i<leaper.getMoveCount(); i++){
+                int nextRow = row + leaper.getRowOffset(i);
+                int nextColumn = column + leaper.getColumnOffset(i);
+                if(nextRow<0 || nextRow>=height || nextColumn<0 || nextColumn>=width){
+                    continue;
+                }
+                allMoves[moveCount++] = Squares.index(nextRow, nextColumn, width);
+            }
+        }
+        moveOffsets[squareCount] = moveCount;
+        moves = new int[moveCount];
+        System.arraycopy(allMoves, 0, moves, 0, moveCount);
+        destinations = squareCount<=MAX_SQUARES_WITH_DESTINATION_MASKS ? destinationMasks(moveOffsets, moves, wordCount) : null;
+        colors = colorSquares(moveOffsets, moves);
+        bipartite = colors != null;
+        distanceMaps = squareCount<=MAX_SQUARES_WITH_CACHED_DISTANCES ? new AtomicReferenceArray<DistanceMap>(squareCount) : null;
+    }
+
+    /**
+     * Copies table without the moves that start or land on a blocked square.
+     */
+    private KnightMoveTable(KnightMoveTable table, long[] blockedSquares) {
+        leaper = table.leaper;
+        width = table.width;
+        height = table.height;
+        squareCount = table.squareCount;
+        wordCount = table.wordCount;
+        moveOffsets = new int[squareCount + 1];
+
+        int[] allMoves = new int[table.moves.length];
+        int moveCount = 0;
+        for(int square = 0; square<squareCount; square++){
+            moveOffsets[square] = moveCount;
+            if(BitBoard.contains(blockedSquares, 0, square)){
+                continue;
+            }
+            for(int i = table.firstMove(square), end = table.endMove(square); i<end; i++){
+                int destination = table.moves[i];
+                if(!BitBoard.contains(blockedSquares, 0, destination)){
+                    allMoves[moveCount++] = destination;
+                }
+            }
+        }
+        moveOffsets[squareCount] = moveCount;
+        moves = new int[moveCount];
+        System.arraycopy(allMoves, 0, moves, 0, moveCount);
+        destinations = squareCount<=MAX_SQUARES_WITH_DESTINATION_MASKS ? destinationMasks(moveOffsets, moves, wordCount) : null;
+        colors = colorSquares(moveOffsets, moves);
+        bipartite = colors != null;
+        distanceMaps = squareCount<=MAX_SQUARES_WITH_CACHED_DISTANCES ? new AtomicReferenceArray<DistanceMap>(squareCount) : null;
+    }
+
+    /**
+     * @return the knight move table of a width x height board. Tables are cached and shared between threads
+     */
+    public static KnightMoveTable forBoard(int width, int height) {
+        return forBoard(Leaper.KNIGHT, width, height);
+    }
+
+    /**
+     * @return the move table of leaper on a width x height board. Tables are cached and shared between threads
+     */
+    public static KnightMoveTable forBoard(Leaper leaper, int width, int height) {
+        if(width<=0 || height<=0){
+            throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+        }
+        long key = ((long) width << 32) | height;
+        synchronized (tables) {
+            HashMap<Long, KnightMoveTable> leaperTables = tables.get(leaper);
+            if(leaperTables == null){
+                leaperTables = new HashMap<>();
+                tables.put(leaper, leaperTables);
+            }
+            KnightMoveTable table = leaperTables.get(key);
+            if(table == null){
+                table = new KnightMoveTable(leaper, width, height);
+                leaperTables.put(key, table);
+            }
+            return table;
+        }
+    }
+
+    private static long[] destinationMasks(int[] moveOffsets, int[] moves, int wordCount) {
+        int squareCount = moveOffsets.length - 1;
+        long[] destinations = new long[squareCount*wordCount];
+        for(int square = 0; square<squareCount; square++){
+            for(int i = moveOffsets[square], end = moveOffsets[square + 1]; i<end; i++){
+                BitBoard.add(destinations, square*wordCount, moves[i]);
+            }
+        }
+        return destinations;
+    }
+
+    /**
+     * @param blockedSquares bitboard of the squares a route can not use, see {@link BitBoard}. It must not be changed afterwards
+     * @return the table of {@link #forBoard(Leaper, int, int)} without the moves to and from the blocked squares. The tables
+     *         of the last few boards are cached with their distance maps and shared between threads
+     */
+    static KnightMoveTable forBlockedBoard(Leaper leaper, int width, int height, long[] blockedSquares) {
+        BlockedBoard key = new BlockedBoard(leaper, width, height, blockedSquares);
+        synchronized (blockedTables) {
+            KnightMoveTable table = blockedTables.get(key);
+            if(table == null){
+                table = forBoard(leaper, width, height).withBlockedSquares(blockedSquares);
+                blockedTables.put(key, table);
+                if(blockedTables.size()>MAX_CACHED_BLOCKED_TABLES){
+                    //the map is in access order, the first board is the one used longest ago
+                    Iterator<BlockedBoard> eldest = blockedTables.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Colors the squares with 2 colors so that every move changes the color, if that is possible.
+     * The knight always can: every knight move changes the color of the chessboard square.
+     * Squares that are not connected by moves are colored on their own.
+     *
+     * @return the color of every square, 1 or 2, or null if 2 colors are not enough
+     */
+    private static byte[] colorSquares(int[] moveOffsets, int[] moves) {
+        int squareCount = moveOffsets.length - 1;
+        byte[] colors = new byte[squareCount]; //0 not colored yet, 1 or 2 otherwise
+        int[] queue = new int[squareCount];
+        for(int first = 0; first<squareCount; first++){
+            if(colors[first] != 0){
+                continue;
+            }
+            int head = 0, tail = 0;
+            colors[first] = 1;
+            queue[tail++] = first;
+            while (head<tail){
+                int square = queue[head++];
+                byte nextColor = (byte) (3 - colors[square]);
+                for(int i = moveOffsets[square], end = moveOffsets[square + 1]; i<end; i++){
+                    int neighbour = moves[i];
+                    if(colors[neighbour] == 0){
+                        colors[neighbour] = nextColor;
+                        queue[tail++] = neighbour;
+                    }
+                    else if(colors[neighbour] != nextColor){
+                        return null;
+                    }
+                }
+            }
+        }
+        return colors;
+    }
+
+    /**
+     * @param blockedSquares bitboard of the squares a route can not use, see {@link BitBoard}
+     * @return a new table without the moves to and from the blocked squares. The order of the
+     *         remaining moves is kept. The table is not cached, {@link SolverConfig} gets its tables from {@link #forBlockedBoard}
+     */
+    public KnightMoveTable withBlockedSquares(long[] blockedSquares) {
+        return new KnightMoveTable(this, blockedSquares);
+    }
+
+    /**
+     * @return the distances to target. They are cached for small boards
+     */
+    public DistanceMap getDistanceMap(int target) {
+        if(distanceMaps == null){
+            return DistanceMap.toSquare(this, target);
+        }
+        DistanceMap distanceMap = distanceMaps.get(target);
+        if(distanceMap == null){
+            distanceMap = DistanceMap.toSquare(this, target);
+            distanceMaps.set(target, distanceMap);
+        }
+        return distanceMap;
+    }
+
+    public Leaper getLeaper() {
+        return leaper;
+    }
+
+    /**
+     * @return true if the squares can be colored with 2 colors so that every move changes the color.
+     *         Then all the routes between two squares have the parity of the shortest one
+     */
+    public boolean isBipartite() {
+        return bipartite;
+    }
+
+    /**
+     * @return 1 or 2, the color of square on a bipartite table. Every move changes the color
+     */
+    int getColor(int square) {
+        return colors[square];
+    }
+
+    /**
+     * @return the most moves a route can have, given the moves of the shortest one. On bipartite
+     *         tables routes never have the other parity of shortestRouteLength, so that length is skipped
+     */
+    int longestRouteLength(int shortestRouteLength, int maxSteps) {
+        return bipartite ? maxSteps - ((maxSteps - shortestRouteLength) & 1) : maxSteps;
+    }
+
+    /**
+     * @return the difference between the number of moves of two routes between the same squares: 2 on bipartite tables, 1 otherwise
+     */
+    int routeLengthStep() {
+        return bipartite ? 2 : 1;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getSquareCount() {
+        return squareCount;
+    }
+
+    /**
+     * @return how many longs a bitboard of all the squares uses, see {@link BitBoard}
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return index in the adjacency list of the first destination of square
+     */
+    public int firstMove(int square) {
+        return moveOffsets[square];
+    }
+
+    /**
+     * @return index in the adjacency list right after the last destination of square
+     */
+    public int endMove(int square) {
+        return moveOffsets[square + 1];
+    }
+
+    /**
+     * @param index index in the adjacency list, between firstMove(square) and endMove(square)
+     */
+    public int destination(int index) {
+        return moves[index];
+    }
+
+    public int getDestinationCount(int square) {
+        return moveOffsets[square + 1] - moveOffsets[square];
+    }
+
+    /**
+     * @return the position of to in the destinations of from, or -1 if it is not a knight move away.
+     *         Routes with the same number of moves are ordered by these positions
+     */
+    public int indexOfMove(int from, int to) {
+        if(destinations != null && !BitBoard.contains(destinations, from*wordCount, to)){
+            return -1;
+        }
+        for(int i = moveOffsets[from], end = moveOffsets[from + 1]; i<end; i++){
+            if(moves[i] == to){
+                return i - moveOffsets[from];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the piece can reach to in a single move from
+     */
+    public boolean isMove(int from, int to) {
+        if(destinations != null){
+            return BitBoard.contains(destinations, from*wordCount, to);
+        }
+        return indexOfMove(from, to) >= 0;
+    }
+
+    private static final class BlockedBoard {
+
+        private final Leaper leaper;
+        private final int width, height;
+        private final long[] blockedSquares;
+
+        BlockedBoard(Leaper leaper, int width, int height, long[] blockedSquares) {
+            this.leaper = leaper;
+            this.width = width;
+            this.height = height;
+            this.blockedSquares = blockedSquares;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            BlockedBoard board = (BlockedBoard) o;
+            return width == board.width && height == board.height && leaper.equals(board.leaper)
+                    && Arrays.equals(blockedSquares, board.blockedSquares);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((width*31 + height)*31 + leaper.hashCode())*31 + Arrays.hashCode(blockedSquares);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package demo.knight.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Finds all the unique routes a knight can follow from a start square to an end square
+ * in at most {@link SolverConfig#getMaxSteps()} moves. Squares are encoded as described in {@link Squares}.
+ *
+ * Only simple routes (routes that never land on the same square twice) are generated. A route
+ * with a circle is not useful because if we remove the unnecessary circle the remaining route
+ * would already be in the results.
+ */
+public class KnightRouteEngine {
+
+    private KnightMoveTable moveTable;
+    private int[] distances; //moves needed to reach the end square from each square
+    private int maxSteps;
+    private int[] path;
+    private long[] visited; //squares of the current path
+    private ArrayList<int[]>[] resultsByLength; //routes found, grouped by their number of moves
+    //counted for SolverStats, plain fields are cheap enough to always count
+    private long nodes, visitedPrunes, tooFarPrunes, routeBytes;
+
+    /**
+     * @return every route as an array of squares (start and end included), with the routes
+     *         that need the fewest moves first
+     */
+    public List<int[]> solveRoute(SolverConfig config, int start, int end) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        SolverStats stats = SolverStats.start(config, start, end);
+        int maxSteps = config.getMaxSteps();
+        DistanceMap distanceMap = config.getDistanceMap(end);
+        int startDistance = distanceMap.getDistance(start);
+        if(start == end || startDistance>maxSteps){
+            //the end square can not be reached in maxSteps moves
+            if(stats != null){
+                stats.finish();
+            }
+            return new ArrayList<>();
+        }
+        //every knight move changes the color of the square the knight stands on, so all routes
+        //from start to end have the same parity as the shortest one. If maxSteps has the other
+        //parity the last move can never land on the end square. The same holds for every piece
+        //with a bipartite move table.
+        KnightMoveTable moveTable = config.getMoveTable();
+        int stepLimit = moveTable.longestRouteLength(startDistance, maxSteps);
+
+        if(stats == null){
+            return joinByLength(searchFrom(moveTable, distanceMap.distances, new int[]{start}, end, stepLimit));
+        }
+        stats.beginPhase(SolverStats.Phase.SEARCH);
+        ArrayList<int[]>[] resultsByLength = searchFrom(moveTable, distanceMap.distances, new int[]{start}, end, stepLimit);
+        stats.endPhase(SolverStats.Phase.SEARCH);
+        stats.beginPhase(SolverStats.Phase.JOIN);
+        ArrayList<int[]> routes = joinByLength(resultsByLength);
+        stats.endPhase(SolverStats.Phase.JOIN);
+        stats.nodes += nodes;
+        stats.prunes[SolverStats.Prune.VISITED.ordinal()] += visitedPrunes;
+        stats.prunes[SolverStats.Prune.TOO_FAR.ordinal()] += tooFarPrunes;
+        stats.routesFound += routes.size();
+        stats.allocatedBytes += routeBytes;
+        stats.finish();
+        return routes;
+    }
+
+    /**
+     * @return the first limit routes of {@link #solveRoute}, in the same order. The search stops
+     *         as soon as they are found, so routes with more moves than the last one are never searched for
+     */
+    public List<int[]> solveRoute(SolverConfig config, int start, int end, int limit) {
+        ArrayList<int[]> routes = new ArrayList<>();
+        RouteIterator iterator = iterateRoutes(config, start, end);
+        while (routes.size()<limit && iterator.hasNext()){
+            routes.add(iterator.next());
+        }
+        iterator.finishStats();
+        return routes;
+    }
+
+    /**
+     * Finds only the routes with the fewest moves, whatever {@link SolverConfig#getMaxSteps()} is.
+     *
+     * The distance map is the layered graph of a breadth first search from the end square: a
+     * shortest route always moves to a square one layer closer to the end. Following only those
+     * moves never leads to a dead end, so the cost grows with the number of shortest routes and
+     * not with the size of the search tree. Shortest routes never land on a square twice.
+     *
+     * @return the routes in the order of {@link #solveRoute}, which lists them first
+     */
+    public List<int[]> solveShortestRoutes(SolverConfig config, int start, int end) {
+        return solveShortestRoutes(config, start, end, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the first limit routes of {@link #solveShortestRoutes(SolverConfig, int, int)}, in the same order.
+     *         Boards with long shortest routes can have too many of them to keep
+     */
+    public List<int[]> solveShortestRoutes(SolverConfig config, int start, int end, int limit) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        ArrayList<int[]> routes = new ArrayList<>();
+        DistanceMap distanceMap = config.getDistanceMap(end);
+        int length = distanceMap.getDistance(start);
+        if(start == end || length == DistanceMap.UNREACHABLE){
+            return routes;
+        }
+        KnightMoveTable moveTable = config.getMoveTable();
+        int[] distances = distanceMap.distances;
+        int[] moves = moveTable.moves;
+        //explicit stacks, shortest routes can be very long on large boards with blocked squares
+        int[] path = new int[length + 1];
+        int[] nextMoves = new int[length + 1];
+        path[0] = start;
+        nextMoves[0] = moveTable.firstMove(start);
+        int step = 0;
+        while (step>=0){
+            if(step == length){
+                routes.add(path.clone());
+                if(routes.size() >= limit){
+                    break;
+                }
+                step--;
+                continue;
+            }
+            int square = path[step];
+            if(nextMoves[step] == moveTable.endMove(square)){
+                step--;
+                continue;
+            }
+            int nextSquare = moves[nextMoves[step]++];
+            if(distances[nextSquare] == length - step - 1){
+                step++;
+                path[step] = nextSquare;
+                nextMoves[step] = moveTable.firstMove(nextSquare);
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Finds the routes that start with the given squares.
+     *
+     * @param distances distances to the end square, see {@link DistanceMap}
+     * @param prefix    squares the knight has already landed on. They must not repeat and the end square can only be the last of them
+     * @return the routes found, grouped by their number of moves. Routes with the same number
+     *         of moves are in the order they were found.
+     */
+    ArrayList<int[]>[] searchFrom(KnightMoveTable moveTable, int[] distances, int[] prefix, int end, int maxSteps) {
+        this.moveTable = moveTable;
+        this.distances = distances;
+        this.maxSteps = maxSteps;
+        path = new int[maxSteps + 1];
+        visited = new long[moveTable.getWordCount()];
+        resultsByLength = newResultsByLength(maxSteps);
+        nodes = prefix.length;
+        visitedPrunes = 0;
+        tooFarPrunes = 0;
+        routeBytes = 0;
+
+        int step = prefix.length - 1;
+        System.arraycopy(prefix, 0, path, 0, prefix.length);
+        for(int square:prefix){
+            BitBoard.add(visited, 0, square);
+        }
+        if(prefix[step] == end){
+            addRoute(step);
+        }
+        else {
+            solveRouteRecursively(end, step);
+        }
+
+        ArrayList<int[]>[] results = resultsByLength;
+        resultsByLength = null;
+        return results;
+    }
+
+    /**
+     * @return a slot for the routes of every number of moves up to maxSteps, all null. Generic arrays can only be created raw
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ArrayList<int[]>[] newResultsByLength(int maxSteps) {
+        return new ArrayList[maxSteps + 1];
+    }
+
+    /**
+     * @return the routes of all the groups, with routes with fewer moves first
+     */
+    static ArrayList<int[]> joinByLength(ArrayList<int[]>[] resultsByLength) {
+        ArrayList<int[]> routes = new ArrayList<>();
+        for(ArrayList<int[]> results:resultsByLength){
+            if(results!=null){
+                routes.addAll(results);
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * @return the routes of {@link #solveRoute} in the same order, found one by one while they are
+     *         iterated. See {@link RouteIterator}
+     */
+    public RouteIterator iterateRoutes(SolverConfig config, int start, int end) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        return new RouteIterator(config, start, end);
+    }
+
+    /**
+     * Hands every route of {@link #solveRoute} to visitor, in depth first order instead of with
+     * the fewest moves first. Each square is searched once, the path is kept in explicit stacks
+     * and routes are shown to the visitor through one reused {@link RouteView}, so nothing is
+     * allocated per route.
+     *
+     * @return true if every route was visited, false if the visitor stopped the search
+     */
+    public boolean visitRoutes(SolverConfig config, int start, int end, RouteVisitor visitor) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        SolverStats stats = SolverStats.start(config, start, end);
+        DistanceMap distanceMap = config.getDistanceMap(end);
+        int startDistance = distanceMap.getDistance(start);
+        if(start == end || startDistance>config.getMaxSteps()){
+            if(stats != null){
+                stats.finish();
+            }
+            return true;
+        }
+        KnightMoveTable moveTable = config.getMoveTable();
+        int stepLimit = moveTable.longestRouteLength(startDistance, config.getMaxSteps());
+        int[] distances = distanceMap.distances;
+        int[] moves = moveTable.moves;
+        int[] path = new int[stepLimit + 1];
+        int[] nextMoves = new int[stepLimit + 1];
+        long[] visited = new long[moveTable.getWordCount()];
+        RouteView view = new RouteView(path);
+        long nodes = 1, routes = 0, visitedPrunes = 0, tooFarPrunes = 0;
+        if(stats != null){
+            stats.beginPhase(SolverStats.Phase.SEARCH);
+        }
+
+        boolean complete = true;
+        int step = 0;
+        path[0] = start;
+        nextMoves[0] = moveTable.firstMove(start);
+        BitBoard.add(visited, 0, start);
+        while (step>=0){
+            int square = path[step];
+            if(nextMoves[step] == moveTable.endMove(square)){
+                //all destinations of this square were tried, go back one move
+                BitBoard.remove(visited, 0, square);
+                step--;
+                continue;
+            }
+            int nextSquare = moves[nextMoves[step]++];
+            if(BitBoard.contains(visited, 0, nextSquare)){
+                visitedPrunes++;
+                continue;
+            }
+            if(nextSquare == end){
+                nodes++;
+                routes++;
+                path[step+1] = end;
+                view.setSquareCount(step + 2);
+                if(!visitor.visit(view)){
+                    complete = false;
+                    break;
+                }
+                continue;
+            }
+            if(distances[nextSquare]>stepLimit - step - 1){
+                tooFarPrunes++;
+                continue;
+            }
+            nodes++;
+            step++;
+            path[step] = nextSquare;
+            nextMoves[step] = moveTable.firstMove(nextSquare);
+            BitBoard.add(visited, 0, nextSquare);
+        }
+
+        if(stats != null){
+            stats.endPhase(SolverStats.Phase.SEARCH);
+            stats.nodes += nodes;
+            stats.prunes[SolverStats.Prune.VISITED.ordinal()] += visitedPrunes;
+            stats.prunes[SolverStats.Prune.TOO_FAR.ordinal()] += tooFarPrunes;
+            stats.routesFound += routes;
+            stats.finish();
+        }
+        return complete;
+    }
+
+    /**
+     * @return a sequential stream over {@link #iterateRoutes}. The search stops when the stream stops pulling routes
+     */
+    public Stream<int[]> streamRoutes(SolverConfig config, int start, int end) {
+        Iterator<int[]> routes = iterateRoutes(config, start, end);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(routes, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private void solveRouteRecursively(int endSquare, int step) {
+        if(step>=maxSteps){
+            return;
+        }
+        int[] moves = moveTable.moves;
+        int square = path[step];
+        for(int i = moveTable.firstMove(square), end = moveTable.endMove(square); i<end; i++){
+            int nextSquare = moves[i];
+            if(BitBoard.contains(visited, 0, nextSquare)){
+                //never walk in a circle
+                visitedPrunes++;
+                continue;
+            }
+            path[step+1] = nextSquare;
+            if(nextSquare == endSquare){
+                nodes++;
+                addRoute(step+1);
+            }
+            else if(distances[nextSquare] <= maxSteps - step - 1){
+                //only continue if the end square can still be reached with the moves left
+                nodes++;
+                BitBoard.add(visited, 0, nextSquare);
+                solveRouteRecursively(endSquare, step+1);
+                BitBoard.remove(visited, 0, nextSquare);
+            }
+            else {
+                tooFarPrunes++;
+            }
+        }
+    }
+
+    private void addRoute(int lastStep) {
+        int[] route = new int[lastStep + 1];
+        System.arraycopy(path, 0, route, 0, route.length);
+        routeBytes += SolverStats.routeBytes(route.length);
+        if(resultsByLength[lastStep] == null){
+            resultsByLength[lastStep] = new ArrayList<>();
+        }
+        resultsByLength[lastStep].add(route);
+    }
+}
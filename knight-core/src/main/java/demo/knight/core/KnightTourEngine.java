@@ -0,0 +1,267 @@
+package demo.knight.core;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Finds knight's tours: routes that land on every square of the board exactly once, or on a
+ * given number of squares for partial tours. A closed tour also ends a single move away from
+ * its start square, so the knight could go on and repeat it.
+ *
+ * The search is a depth first search that always tries first the square with the fewest
+ * unvisited destinations (Warnsdorff's rule). Ties go to the square farther from the center of
+ * the board, then to the knight move order. On most boards the first branch is already a tour;
+ * when it runs into a dead end the search backtracks, with the visited squares kept in a
+ * bitboard and the path in explicit stacks, until the time budget is used up or it is cancelled.
+ *
+ * Such tours tend to end near the center of the board, and a closed tour only exists if it can
+ * end next to its start. A closed tour over the whole board is a cycle that can start anywhere,
+ * so it is searched from the center and then rotated to begin on the requested square.
+ *
+ * The step limit of the {@link SolverConfig} does not apply to tours. Blocked squares and
+ * other leapers are supported.
+ */
+public class KnightTourEngine {
+
+    //the clock is read once every this many squares tried
+    private static final int NODES_PER_TIME_CHECK = 1024;
+
+    private KnightMoveTable moveTable;
+    private int start, length;
+    private boolean closed;
+    private long[] visited;
+    private int[] degrees; //unvisited destinations of every square
+    private int[] centerDistances; //squared distance to the center of the board, doubled so it is an int
+    private int maxMoves;
+    private int[] path;
+    private int[] candidates; //candidates of path[step] start at step*maxMoves, in the order they are tried
+    private int[] candidateCounts;
+    private int[] nextCandidates; //for each step, the index of the next candidate to try
+    private volatile boolean cancelled;
+
+    /**
+     * @return a tour over every square that is not blocked
+     * @see #findTour
+     */
+    public int[] findFullTour(SolverConfig config, int start, boolean closed, long timeBudgetMillis) throws TimeoutException {
+        return findTour(config, start, countFreeSquares(config), closed, timeBudgetMillis);
+    }
+
+    /**
+     * @param length           number of squares the tour lands on, start included
+     * @param closed           if true the last square must be a single move away from start
+     * @param timeBudgetMillis how long the search may run
+     * @return the squares of the tour in the order the knight lands on them, or null if there is no such tour
+     * @throws TimeoutException if the time budget was used up before a tour was found
+     * @throws CancellationException if {@link #cancel} was called
+     */
+    public int[] findTour(SolverConfig config, int start, int length, boolean closed, long timeBudgetMillis) throws TimeoutException {
+        config.checkSquare(start);
+        if(length<1 || length>config.getSquareCount()){
+            throw new IllegalArgumentException("Invalid tour length: " + length);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        moveTable = config.getMoveTable();
+        if(config.isBlocked(start)){
+            return null;
+        }
+        if(closed && (length<3 || (moveTable.isBipartite() && (length & 1) != 0))){
+            //a closed tour on a bipartite board changes color an odd number of times to get back
+            //next to start, so it lands on an even number of squares
+            return null;
+        }
+        boolean fullTour = length == countFreeSquares(config);
+        if(fullTour && moveTable.isBipartite() && !colorsAllowFullTour(config, start, length)){
+            return null;
+        }
+
+        this.length = length;
+        this.closed = closed;
+        init(config);
+        boolean rotate = closed && fullTour;
+        this.start = rotate ? centerSquare(config) : start;
+        try {
+            int[] tour = search(deadline);
+            return rotate && tour != null ? rotate(tour, start) : tour;
+        }
+        finally {
+            path = null;
+            candidates = null;
+        }
+    }
+
+    /**
+     * Stops the running {@link #findTour} of this engine from another thread, and every later one
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * A tour on a bipartite board lands on the two colors in turn. So a tour over every free square
+     * with an even length needs as many free squares of both colors, and one with an odd length
+     * needs one more of the color of start, where it also ends.
+     */
+    private boolean colorsAllowFullTour(SolverConfig config, int start, int length) {
+        int startColor = moveTable.getColor(start);
+        int difference = 0; //free squares of the color of start minus those of the other color
+        for(int square = 0; square<config.getSquareCount(); square++){
+            if(!config.isBlocked(square)){
+                difference += moveTable.getColor(square) == startColor ? 1 : -1;
+            }
+        }
+        return difference == (length & 1);
+    }
+
+    private static int countFreeSquares(SolverConfig config) {
+        int count = 0;
+        for(int square = 0; square<config.getSquareCount(); square++){
+            if(!config.isBlocked(square)){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the free square closest to the center of the board
+     */
+    private int centerSquare(SolverConfig config) {
+        int center = -1;
+        for(int square = 0; square<config.getSquareCount(); square++){
+            if(!config.isBlocked(square) && (center == -1 || centerDistances[square]<centerDistances[center])){
+                center = square;
+            }
+        }
+        return center;
+    }
+
+    /**
+     * @return the closed tour starting on start instead of tour[0]
+     */
+    private static int[] rotate(int[] tour, int start) {
+        int[] rotated = new int[tour.length];
+        int first = 0;
+        while (tour[first] != start){
+            first++;
+        }
+        for(int i = 0; i<tour.length; i++){
+            rotated[i] = tour[(first + i) % tour.length];
+        }
+        return rotated;
+    }
+
+    private void init(SolverConfig config) {
+        int squareCount = moveTable.getSquareCount();
+        int width = config.getWidth();
+        int height = config.getHeight();
+        visited = new long[moveTable.getWordCount()];
+        degrees = new int[squareCount];
+        centerDistances = new int[squareCount];
+        maxMoves = 0;
+        for(int square = 0; square<squareCount; square++){
+            degrees[square] = moveTable.getDestinationCount(square);
+            maxMoves = Math.max(maxMoves, degrees[square]);
+            int rowDistance = 2*Squares.row(square, width) - (height - 1);
+            int columnDistance = 2*Squares.column(square, width) - (width - 1);
+            centerDistances[square] = rowDistance*rowDistance + columnDistance*columnDistance;
+        }
+        path = new int[length];
+        candidates = new int[length*Math.max(maxMoves, 1)];
+        candidateCounts = new int[length];
+        nextCandidates = new int[length];
+    }
+
+    private int[] search(long deadline) throws TimeoutException {
+        int step = 0;
+        visit(start);
+        path[0] = start;
+        collectCandidates(0);
+        long nodes = 0;
+        while (true){
+            if(step == length - 1 && (!closed || moveTable.isMove(path[step], start))){
+                return Arrays.copyOf(path, length);
+            }
+            if(nextCandidates[step] == candidateCounts[step]){
+                //every candidate of this square was tried, go back one move
+                unvisit(path[step]);
+                if(step == 0){
+                    return null;
+                }
+                step--;
+                continue;
+            }
+            int next = candidates[step*maxMoves + nextCandidates[step]++];
+            step++;
+            path[step] = next;
+            visit(next);
+            collectCandidates(step);
+
+            if(++nodes % NODES_PER_TIME_CHECK == 0){
+                if(cancelled){
+                    throw new CancellationException("Tour search cancelled");
+                }
+                if(System.nanoTime() - deadline > 0){
+                    throw new TimeoutException("No tour found in the time budget");
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the unvisited destinations of path[step], best first
+     */
+    private void collectCandidates(int step) {
+        candidateCounts[step] = 0;
+        nextCandidates[step] = 0;
+        if(step == length - 1){
+            return;
+        }
+        int square = path[step];
+        int offset = step*maxMoves;
+        int count = 0;
+        int[] moves = moveTable.moves;
+        for(int i = moveTable.firstMove(square), end = moveTable.endMove(square); i<end; i++){
+            int next = moves[i];
+            if(BitBoard.contains(visited, 0, next)){
+                continue;
+            }
+            if(closed && step + 1<length - 1 && degrees[start] == 1 && moveTable.isMove(next, start)){
+                //next is the last unvisited square the tour could end on
+                continue;
+            }
+            //insertion sort, the list is at most a few moves long
+            int position = count++;
+            while (position>0 && isBetter(next, candidates[offset + position - 1])){
+                candidates[offset + position] = candidates[offset + position - 1];
+                position--;
+            }
+            candidates[offset + position] = next;
+        }
+        candidateCounts[step] = count;
+    }
+
+    private boolean isBetter(int square, int other) {
+        if(degrees[square] != degrees[other]){
+            return degrees[square]<degrees[other];
+        }
+        //Warnsdorff's rule ties: squares near the edges get stranded more easily, so visit them first
+        return centerDistances[square]>centerDistances[other];
+    }
+
+    private void visit(int square) {
+        BitBoard.add(visited, 0, square);
+        for(int i = moveTable.firstMove(square), end = moveTable.endMove(square); i<end; i++){
+            degrees[moveTable.moves[i]]--;
+        }
+    }
+
+    private void unvisit(int square) {
+        BitBoard.remove(visited, 0, square);
+        for(int i = moveTable.firstMove(square), end = moveTable.endMove(square); i<end; i++){
+            degrees[moveTable.moves[i]]++;
+        }
+    }
+}
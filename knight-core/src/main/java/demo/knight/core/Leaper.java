@@ -0,0 +1,125 @@
+package demo.knight.core;
+
+import java.util.Arrays;
+
+/**
+ * Movement rule of a leaper: a piece that jumps straight to its destinations, like the knight.
+ * An (m,n)-leaper moves m squares along one axis and n squares along the other, in any
+ * direction, so it has up to 8 destinations. Compound pieces can make the moves of all
+ * their parts, for example the knight+wazir.
+ *
+ * The moves of every leaper are symmetric, so the distance maps and the board symmetries
+ * used by the engines work for all of them.
+ */
+public final class Leaper {
+
+    public static final Leaper KNIGHT = new Leaper("knight", 2, 1);
+    public static final Leaper CAMEL = new Leaper("camel", 3, 1);
+    public static final Leaper ZEBRA = new Leaper("zebra", 3, 2);
+    public static final Leaper WAZIR = new Leaper("wazir", 1, 0);
+    public static final Leaper FERZ = new Leaper("ferz", 1, 1);
+
+    private final String name;
+    //the order of the moves decides the order of routes with the same number of moves
+    private final int[] rowOffsets;
+    private final int[] columnOffsets;
+
+    private Leaper(String name, int m, int n) {
+        this(name, movesOf(m, n, true), movesOf(m, n, false));
+    }
+
+    private Leaper(String name, int[] rowOffsets, int[] columnOffsets) {
+        this.name = name;
+        this.rowOffsets = rowOffsets;
+        this.columnOffsets = columnOffsets;
+    }
+
+    /**
+     * @return the (m,n)-leaper. Its moves are listed in the order the knight's are: m rows first, then m columns
+     */
+    public static Leaper of(int m, int n) {
+        if(m<0 || n<0 || m + n == 0){
+            throw new IllegalArgumentException("Invalid leaper: (" + m + "," + n + ")");
+        }
+        return new Leaper("(" + m + "," + n + ")-leaper", m, n);
+    }
+
+    /**
+     * @return a piece that can make the moves of this leaper and of other. Moves of this leaper are listed first
+     */
+    public Leaper plus(Leaper other) {
+        int[] rows = new int[rowOffsets.length + other.rowOffsets.length];
+        int[] columns = new int[rows.length];
+        int count = 0;
+        for(Leaper leaper:new Leaper[]{this, other}){
+            for(int i = 0; i<leaper.rowOffsets.length; i++){
+                if(!contains(rows, columns, count, leaper.rowOffsets[i], leaper.columnOffsets[i])){
+                    rows[count] = leaper.rowOffsets[i];
+                    columns[count] = leaper.columnOffsets[i];
+                    count++;
+                }
+            }
+        }
+        return new Leaper(name + "+" + other.name, Arrays.copyOf(rows, count), Arrays.copyOf(columns, count));
+    }
+
+    public int getMoveCount() {
+        return rowOffsets.length;
+    }
+
+    public int getRowOffset(int move) {
+        return rowOffsets[move];
+    }
+
+    public int getColumnOffset(int move) {
+        return columnOffsets[move];
+    }
+
+    /**
+     * for m=2, n=1 these are the knight moves (-2,-1), (-2,+1), (+2,-1), (+2,+1), (-1,-2), (+1,-2), (-1,+2), (+1,+2).
+     * Moves that repeat, like the ones of the (1,0)-leaper, are listed once
+     */
+    private static int[] movesOf(int m, int n, boolean rows) {
+        int[] rowOffsets = {-m, -m, m, m, -n, n, -n, n};
+        int[] columnOffsets = {-n, n, -n, n, -m, -m, m, m};
+        int[] uniqueRows = new int[8];
+        int[] uniqueColumns = new int[8];
+        int count = 0;
+        for(int i = 0; i<8; i++){
+            if(!contains(uniqueRows, uniqueColumns, count, rowOffsets[i], columnOffsets[i])){
+                uniqueRows[count] = rowOffsets[i];
+                uniqueColumns[count] = columnOffsets[i];
+                count++;
+            }
+        }
+        return Arrays.copyOf(rows ? uniqueRows : uniqueColumns, count);
+    }
+
+    private static boolean contains(int[] rows, int[] columns, int count, int row, int column) {
+        for(int i = 0; i<count; i++){
+            if(rows[i] == row && columns[i] == column){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Leaper leaper = (Leaper) o;
+        return Arrays.equals(rowOffsets, leaper.rowOffsets) && Arrays.equals(columnOffsets, leaper.columnOffsets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(rowOffsets)*31 + Arrays.hashCode(columnOffsets);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
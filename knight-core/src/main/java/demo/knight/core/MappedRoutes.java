@@ -0,0 +1,51 @@
+package demo.knight.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Routes stored as fixed width records, so route i is found without an index: it starts at byte
+ * i*recordSize. A record is the number of squares of the route followed by its squares, 2 bytes
+ * each, padded to the longest route the query allows.
+ *
+ * The records are read in place from their buffers, which are memory mapped from the file
+ * written by {@link RouteResultSetBuilder} or, for small result sets, on the heap. A mapped file
+ * is paged in and out by the operating system, so the routes take no heap at all. Buffers hold
+ * at most 2GB, so larger result sets are split in segments.
+ */
+public final class MappedRoutes implements RouteResultSet {
+
+    private final ByteBuffer[] segments;
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private final int size;
+
+    MappedRoutes(ByteBuffer[] segments, int recordSize, int recordsPerSegment, int size) {
+        this.segments = segments;
+        this.recordSize = recordSize;
+        this.recordsPerSegment = recordsPerSegment;
+        this.size = size;
+    }
+
+    /**
+     * @return bytes of the record of a route with up to maxSquares squares
+     */
+    static int recordSize(int maxSquares) {
+        return 2*(maxSquares + 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getSquareCount(int index) {
+        //absolute reads never move the position of the buffer, so they are safe from many threads
+        return segments[index/recordsPerSegment].getChar((index % recordsPerSegment)*recordSize);
+    }
+
+    @Override
+    public int getSquare(int index, int position) {
+        return segments[index/recordsPerSegment].getChar((index % recordsPerSegment)*recordSize + 2 + 2*position);
+    }
+}
@@ -0,0 +1,82 @@
+package demo.knight.core;
+
+import java.util.List;
+
+/**
+ * An immutable list of routes stored in one shared array instead of an array per route.
+ * Every square takes two bytes, so boards can have up to 65536 squares.
+ */
+public final class PackedRoutes implements RouteResultSet {
+
+    private final char[] squares; //the squares of all the routes, one route after the other
+    private final int[] offsets; //route i is squares[offsets[i]] up to squares[offsets[i+1]-1]
+
+    private PackedRoutes(char[] squares, int[] offsets) {
+        this.squares = squares;
+        this.offsets = offsets;
+    }
+
+    public static PackedRoutes pack(List<int[]> routes) {
+        int squareCount = 0;
+        for(int[] route:routes){
+            squareCount += route.length;
+        }
+        char[] squares = new char[squareCount];
+        int[] offsets = new int[routes.size() + 1];
+        int offset = 0;
+        for(int i = 0; i<routes.size(); i++){
+            offsets[i] = offset;
+            for(int square:routes.get(i)){
+                if(square>Character.MAX_VALUE){
+                    throw new IllegalArgumentException("Square " + square + " does not fit in a packed route");
+                }
+                squares[offset++] = (char) square;
+            }
+        }
+        offsets[routes.size()] = offset;
+        return new PackedRoutes(squares, offsets);
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int getSquareCount(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    @Override
+    public int getSquare(int index, int position) {
+        return squares[offsets[index] + position];
+    }
+
+    @Override
+    public int[] getRoute(int index) {
+        int[] route = new int[getSquareCount(index)];
+        for(int i = 0; i<route.length; i++){
+            route[i] = squares[offsets[index] + i];
+        }
+        return route;
+    }
+
+    @Override
+    public String describe(int index, int width, int height) {
+        StringBuilder description = new StringBuilder();
+        for(int i = offsets[index]; i<offsets[index + 1]; i++){
+            if(i>offsets[index]){
+                description.append(", ");
+            }
+            Squares.appendAlgebraic(description, squares[i], width, height);
+        }
+        return description.toString();
+    }
+
+    /**
+     * @return approximate heap size of this object in bytes
+     */
+    public long getByteSize() {
+        return 16 + 16 + squares.length*2L + 16 + offsets.length*4L;
+    }
+}
@@ -0,0 +1,130 @@
+package demo.knight.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the same routes as {@link KnightRouteEngine}, in the same order, on many threads.
+ *
+ * The search tree is split on the first {@link #SPLIT_MOVES} moves of the knight. Every branch
+ * becomes a fork/join task with its own path buffer, visited squares and results, so tasks share
+ * nothing but the read only move table and distance map. Branches are listed in the order the
+ * depth first search would visit them, and their results are joined in that order.
+ */
+public class ParallelRouteEngine {
+
+    private static final int SPLIT_MOVES = 2;
+
+    private final ForkJoinPool pool;
+
+    public ParallelRouteEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelRouteEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return every route as an array of squares (start and end included), with the routes
+     *         that need the fewest moves first
+     */
+    public List<int[]> solveRoute(SolverConfig config, int start, int end) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        KnightMoveTable moveTable = config.getMoveTable();
+        int maxSteps = config.getMaxSteps();
+        DistanceMap distanceMap = config.getDistanceMap(end);
+        int startDistance = distanceMap.getDistance(start);
+        if(start == end || startDistance>maxSteps){
+            return new ArrayList<>();
+        }
+        //all routes have the parity of the shortest one, see KnightRouteEngine
+        final int stepLimit = moveTable.longestRouteLength(startDistance, maxSteps);
+
+        final ArrayList<BranchSearch> branches = new ArrayList<>();
+        collectBranches(moveTable, distanceMap.distances, new int[]{start}, end, stepLimit, branches);
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(branches);
+            }
+        });
+
+        ArrayList<int[]>[] resultsByLength = KnightRouteEngine.newResultsByLength(stepLimit);
+        for(BranchSearch branch:branches){
+            for(int length = 0; length<=stepLimit; length++){
+                ArrayList<int[]> branchResults = branch.resultsByLength[length];
+                if(branchResults == null){
+                    continue;
+                }
+                if(resultsByLength[length] == null){
+                    resultsByLength[length] = new ArrayList<>();
+                }
+                resultsByLength[length].addAll(branchResults);
+            }
+        }
+        return KnightRouteEngine.joinByLength(resultsByLength);
+    }
+
+    /**
+     * Adds a task for every branch of the search tree below prefix, SPLIT_MOVES moves deep.
+     * Branches that can not reach the end square are pruned like the depth first search does.
+     */
+    private void collectBranches(KnightMoveTable moveTable, int[] distances, int[] prefix, int end, int maxSteps, ArrayList<BranchSearch> branches) {
+        int step = prefix.length - 1;
+        int square = prefix[step];
+        if(square == end || step == SPLIT_MOVES || step == maxSteps){
+            branches.add(new BranchSearch(moveTable, distances, prefix, end, maxSteps));
+            return;
+        }
+        for(int i = moveTable.firstMove(square), last = moveTable.endMove(square); i<last; i++){
+            int nextSquare = moveTable.moves[i];
+            if(contains(prefix, nextSquare)){
+                continue;
+            }
+            if(nextSquare != end && distances[nextSquare]>maxSteps - step - 1){
+                continue;
+            }
+            int[] nextPrefix = new int[prefix.length + 1];
+            System.arraycopy(prefix, 0, nextPrefix, 0, prefix.length);
+            nextPrefix[prefix.length] = nextSquare;
+            collectBranches(moveTable, distances, nextPrefix, end, maxSteps, branches);
+        }
+    }
+
+    private static boolean contains(int[] squares, int square) {
+        for(int s:squares){
+            if(s == square){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class BranchSearch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final KnightMoveTable moveTable;
+        private final int[] distances;
+        private final int[] prefix;
+        private final int end, maxSteps;
+        private ArrayList<int[]>[] resultsByLength;
+
+        BranchSearch(KnightMoveTable moveTable, int[] distances, int[] prefix, int end, int maxSteps) {
+            this.moveTable = moveTable;
+            this.distances = distances;
+            this.prefix = prefix;
+            this.end = end;
+            this.maxSteps = maxSteps;
+        }
+
+        @Override
+        protected void compute() {
+            resultsByLength = new KnightRouteEngine().searchFrom(moveTable, distances, prefix, end, maxSteps);
+        }
+    }
+}
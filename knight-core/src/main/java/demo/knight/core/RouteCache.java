@@ -0,0 +1,244 @@
+package demo.knight.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the results of route queries, with the least recently used queries evicted first
+ * when the cache grows over its size limit in bytes.
+ *
+ * Every query is first mapped by one of the {@link BoardSymmetry} symmetries to a canonical
+ * query, so up to 8 start/end pairs that are mirror images or rotations of each other share
+ * one entry. Routes are stored as {@link PackedRoutes} in the canonical orientation and mapped
+ * back through the inverse symmetry on every hit.
+ *
+ * All methods are thread safe.
+ */
+public class RouteCache {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private final long maxBytes;
+    private long bytes;
+    private final LinkedHashMap<Query, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public RouteCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the routes of {@link KnightRouteEngine#solveRoute}, from the cache when possible
+     */
+    public List<int[]> solveRoute(SolverConfig config, int start, int end) {
+        List<int[]> routes = get(config, start, end);
+        if(routes == null){
+            //solve outside the lock so that other queries are not blocked
+            routes = new KnightRouteEngine().solveRoute(config, start, end);
+            put(config, start, end, routes);
+        }
+        return routes;
+    }
+
+    /**
+     * @return the first limit routes of {@link KnightRouteEngine#solveRoute}. They are taken from the
+     *         cache when possible, otherwise the search stops once it has found them. Such partial
+     *         results are not added to the cache
+     */
+    public List<int[]> solveRoute(SolverConfig config, int start, int end, int limit) {
+        List<int[]> routes = get(config, start, end);
+        if(routes == null){
+            return new KnightRouteEngine().solveRoute(config, start, end, limit);
+        }
+        return routes.size()<=limit ? routes : new ArrayList<>(routes.subList(0, limit));
+    }
+
+    /**
+     * @return the cached routes of the query in the order of {@link KnightRouteEngine#solveRoute}, or null if they are not cached
+     */
+    public synchronized List<int[]> get(SolverConfig config, int start, int end) {
+        BoardSymmetry symmetry = canonicalSymmetry(config, start, end);
+        Entry entry = entries.get(new Query(config, symmetry.apply(start, config.getWidth(), config.getHeight()), symmetry.apply(end, config.getWidth(), config.getHeight())));
+        if(entry == null){
+            return null;
+        }
+
+        BoardSymmetry inverse = symmetry.inverse();
+        int[] order = getOrder(entry, inverse, config);
+        PackedRoutes routes = entry.routes;
+        ArrayList<int[]> result = new ArrayList<>(routes.size());
+        for(int i = 0; i<routes.size(); i++){
+            result.add(mapRoute(routes, order == null ? i : order[i], inverse, config));
+        }
+        return result;
+    }
+
+    /**
+     * @param routes the routes of the query in the order of {@link KnightRouteEngine#solveRoute}
+     */
+    public synchronized void put(SolverConfig config, int start, int end, List<int[]> routes) {
+        BoardSymmetry symmetry = canonicalSymmetry(config, start, end);
+        Query query = new Query(config, symmetry.apply(start, config.getWidth(), config.getHeight()), symmetry.apply(end, config.getWidth(), config.getHeight()));
+        if(entries.containsKey(query)){
+            return;
+        }
+
+        List<int[]> canonicalRoutes = routes;
+        if(symmetry != BoardSymmetry.IDENTITY){
+            canonicalRoutes = new ArrayList<>(routes.size());
+            for(int[] route:routes){
+                int[] canonicalRoute = new int[route.length];
+                for(int i = 0; i<route.length; i++){
+                    canonicalRoute[i] = symmetry.apply(route[i], config.getWidth(), config.getHeight());
+                }
+                canonicalRoutes.add(canonicalRoute);
+            }
+            Collections.sort(canonicalRoutes, new RouteOrder(config.getMoveTable()));
+        }
+
+        Entry entry = new Entry(PackedRoutes.pack(canonicalRoutes));
+        if(entry.bytes>maxBytes){
+            return;
+        }
+        entries.put(query, entry);
+        bytes += entry.bytes;
+        evict();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getByteSize() {
+        return bytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return the symmetry that maps the query to its canonical form: the one with the smallest start and then end square
+     */
+    static BoardSymmetry canonicalSymmetry(SolverConfig config, int start, int end) {
+        int width = config.getWidth();
+        int height = config.getHeight();
+        BoardSymmetry canonical = BoardSymmetry.IDENTITY;
+        long smallest = Long.MAX_VALUE;
+        for(BoardSymmetry symmetry:BoardSymmetry.values()){
+            if(!config.hasSymmetry(symmetry)){
+                continue;
+            }
+            long key = (long) symmetry.apply(start, width, height)*config.getSquareCount() + symmetry.apply(end, width, height);
+            if(key<smallest){
+                smallest = key;
+                canonical = symmetry;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Symmetries keep the routes but not their order, because the order of routes with the same
+     * number of moves depends on the order of the knight moves. The order of the mapped routes
+     * is calculated once per symmetry and kept with the entry.
+     *
+     * @return for every position of the mapped result, the index of the stored route, or null if the order does not change
+     */
+    private int[] getOrder(Entry entry, final BoardSymmetry symmetry, final SolverConfig config) {
+        if(symmetry == BoardSymmetry.IDENTITY){
+            return null;
+        }
+        int[] order = entry.orders[symmetry.ordinal()];
+        if(order != null){
+            return order;
+        }
+
+        final PackedRoutes routes = entry.routes;
+        final RouteOrder routeOrder = new RouteOrder(config.getMoveTable());
+        final int[][] mappedRoutes = new int[routes.size()][];
+        Integer[] indexes = new Integer[routes.size()];
+        for(int i = 0; i<indexes.length; i++){
+            indexes[i] = i;
+            mappedRoutes[i] = mapRoute(routes, i, symmetry, config);
+        }
+        Arrays.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return routeOrder.compare(mappedRoutes[i1], mappedRoutes[i2]);
+            }
+        });
+
+        order = new int[indexes.length];
+        for(int i = 0; i<order.length; i++){
+            order[i] = indexes[i];
+        }
+        entry.orders[symmetry.ordinal()] = order;
+        entry.bytes += 16 + order.length*4L;
+        bytes += 16 + order.length*4L;
+        evict();
+        return order;
+    }
+
+    private static int[] mapRoute(PackedRoutes routes, int index, BoardSymmetry symmetry, SolverConfig config) {
+        int[] route = routes.getRoute(index);
+        for(int i = 0; i<route.length; i++){
+            route[i] = symmetry.apply(route[i], config.getWidth(), config.getHeight());
+        }
+        return route;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Query, Entry>> iterator = entries.entrySet().iterator();
+        while (bytes>maxBytes && iterator.hasNext()){
+            bytes -= iterator.next().getValue().bytes;
+            iterator.remove();
+        }
+    }
+
+    private static final class Query {
+        final SolverConfig config;
+        final int start, end;
+
+        Query(SolverConfig config, int start, int end) {
+            this.config = config;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Query query = (Query) o;
+            return start == query.start && end == query.end && config.equals(query.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return (config.hashCode()*31 + start)*31 + end;
+        }
+    }
+
+    private static final class Entry {
+        final PackedRoutes routes;
+        final int[][] orders = new int[BoardSymmetry.values().length][];
+        long bytes;
+
+        Entry(PackedRoutes routes) {
+            this.routes = routes;
+            bytes = ENTRY_OVERHEAD_BYTES + routes.getByteSize();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package demo.knight.core;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Counts knight routes without building them.
+ *
+ * - routes are the simple routes {@link KnightRouteEngine} finds, so countRoutes(...) is the same as
+ *   solveRoute(...).size(). They are counted with a depth first search that never allocates.
+ * - walks are routes that may land on the same square more than once. Like routes they end the
+ *   first time the knight lands on the end square. They are counted move by move over the squares
+ *   of the board, so their cost does not depend on how many walks there are.
+ */
+public class RouteCounter {
+
+    private KnightMoveTable moveTable;
+    private int[] distances;
+    private long[] visited;
+    private int maxSteps;
+
+    /**
+     * @return the number of simple routes from start to end with at most {@link SolverConfig#getMaxSteps()} moves
+     */
+    public long countRoutes(SolverConfig config, int start, int end) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        int maxSteps = config.getMaxSteps();
+        moveTable = config.getMoveTable();
+        DistanceMap distanceMap = config.getDistanceMap(end);
+        int startDistance = distanceMap.getDistance(start);
+        if(startDistance>maxSteps){
+            return 0;
+        }
+        //all routes have the parity of the shortest one, see KnightRouteEngine
+        this.maxSteps = moveTable.longestRouteLength(startDistance, maxSteps);
+        distances = distanceMap.distances;
+        visited = new long[moveTable.getWordCount()];
+
+        BitBoard.add(visited, 0, start);
+        return countRoutesRecursively(start, end, 0);
+    }
+
+    private long countRoutesRecursively(int square, int endSquare, int step) {
+        long count = 0;
+        int[] moves = moveTable.moves;
+        for(int i = moveTable.firstMove(square), end = moveTable.endMove(square); i<end; i++){
+            int nextSquare = moves[i];
+            if(BitBoard.contains(visited, 0, nextSquare)){
+                continue;
+            }
+            if(nextSquare == endSquare){
+                count++;
+            }
+            else if(distances[nextSquare] <= maxSteps - step - 1){
+                BitBoard.add(visited, 0, nextSquare);
+                count += countRoutesRecursively(nextSquare, endSquare, step+1);
+                BitBoard.remove(visited, 0, nextSquare);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of routes of {@link KnightRouteEngine#solveShortestRoutes}. The step limit does not apply
+     * @throws ArithmeticException if the count does not fit in a long
+     */
+    public long countShortestRoutes(SolverConfig config, int start, int end) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        KnightMoveTable moveTable = config.getMoveTable();
+        int[] distances = config.getDistanceMap(end).distances;
+        int length = distances[start];
+        if(start == end || length == DistanceMap.UNREACHABLE){
+            return 0;
+        }
+        //squares sorted by their distance to the end, so every square comes after the squares one move closer
+        int[] layerStarts = new int[length + 2];
+        for(int distance:distances){
+            if(distance<=length){
+                layerStarts[distance + 1]++;
+            }
+        }
+        for(int distance = 1; distance<layerStarts.length; distance++){
+            layerStarts[distance] += layerStarts[distance - 1];
+        }
+        int[] squares = new int[layerStarts[length + 1]];
+        int[] next = Arrays.copyOf(layerStarts, length + 1);
+        for(int square = 0; square<distances.length; square++){
+            if(distances[square]<=length){
+                squares[next[distances[square]]++] = square;
+            }
+        }
+
+        //routes[s] is the number of shortest routes from s to the end
+        long[] routes = new long[distances.length];
+        routes[end] = 1;
+        int[] moves = moveTable.moves;
+        for(int i = 1; i<squares.length; i++){
+            int square = squares[i];
+            long count = 0;
+            for(int j = moveTable.firstMove(square), last = moveTable.endMove(square); j<last; j++){
+                if(distances[moves[j]] == distances[square] - 1){
+                    count = Math.addExact(count, routes[moves[j]]);
+                }
+            }
+            routes[square] = count;
+        }
+        return routes[start];
+    }
+
+    /**
+     * @return the number of walks from start to end with at most {@link SolverConfig#getMaxSteps()} moves
+     * @throws ArithmeticException if the count does not fit in a long. Use {@link #countWalksExactly} then
+     */
+    public long countWalks(SolverConfig config, int start, int end) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        int maxSteps = config.getMaxSteps();
+        KnightMoveTable moveTable = config.getMoveTable();
+        int[] moves = moveTable.moves;
+        //walks[s] is the number of walks of the current length that stand on s
+        //and have not landed on the end square yet
+        long[] walks = new long[moveTable.getSquareCount()];
+        long[] nextWalks = new long[walks.length];
+        walks[start] = 1;
+        long count = 0;
+        for(int step = 1; step<=maxSteps; step++){
+            for(int square = 0; square<walks.length; square++){
+                long squareWalks = walks[square];
+                if(squareWalks == 0){
+                    continue;
+                }
+                for(int i = moveTable.firstMove(square), last = moveTable.endMove(square); i<last; i++){
+                    nextWalks[moves[i]] = Math.addExact(nextWalks[moves[i]], squareWalks);
+                }
+            }
+            count = Math.addExact(count, nextWalks[end]);
+            nextWalks[end] = 0;
+
+            long[] temp = walks;
+            walks = nextWalks;
+            nextWalks = temp;
+            Arrays.fill(nextWalks, 0);
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #countWalks} without an upper limit on the count. Uses powers of the
+     * adjacency matrix of the board when that is cheaper than going move by move, so very
+     * large step limits cost a few matrix multiplications.
+     */
+    public BigInteger countWalksExactly(SolverConfig config, int start, int end) {
+        config.checkSquare(start);
+        config.checkSquare(end);
+        int maxSteps = config.getMaxSteps();
+        KnightMoveTable moveTable = config.getMoveTable();
+        if(maxSteps<=0){
+            return BigInteger.ZERO;
+        }
+        long squareCount = moveTable.getSquareCount();
+        int log2Steps = 64 - Long.numberOfLeadingZeros(maxSteps);
+        if(squareCount*squareCount*squareCount*2*log2Steps < moveTable.moves.length*(long) maxSteps){
+            return countWalksWithMatrixPowers(moveTable, start, end, maxSteps);
+        }
+        return countWalksMoveByMove(moveTable, start, end, maxSteps);
+    }
+
+    BigInteger countWalksMoveByMove(KnightMoveTable moveTable, int start, int end, int maxSteps) {
+        int[] moves = moveTable.moves;
+        BigInteger[] walks = newZeroVector(moveTable.getSquareCount());
+        BigInteger[] nextWalks = newZeroVector(walks.length);
+        walks[start] = BigInteger.ONE;
+        BigInteger count = BigInteger.ZERO;
+        for(int step = 1; step<=maxSteps; step++){
+            for(int square = 0; square<walks.length; square++){
+                BigInteger squareWalks = walks[square];
+                if(squareWalks.signum() == 0){
+                    continue;
+                }
+                for(int i = moveTable.firstMove(square), last = moveTable.endMove(square); i<last; i++){
+                    nextWalks[moves[i]] = nextWalks[moves[i]].add(squareWalks);
+                }
+            }
+            count = count.add(nextWalks[end]);
+            nextWalks[end] = BigInteger.ZERO;
+
+            BigInteger[] temp = walks;
+            walks = nextWalks;
+            nextWalks = temp;
+            Arrays.fill(nextWalks, BigInteger.ZERO);
+        }
+        return count;
+    }
+
+    /**
+     * Walks stop on the end square, so the end square gets a single move to itself instead of
+     * its knight moves. Then entry [s][end] of the (k-1)th power of the matrix counts the walks
+     * of up to k-1 moves from s to end, and summing it over the first moves from start gives the
+     * walks of up to k moves.
+     */
+    BigInteger countWalksWithMatrixPowers(KnightMoveTable moveTable, int start, int end, int maxSteps) {
+        int squareCount = moveTable.getSquareCount();
+        BigInteger[][] matrix = new BigInteger[squareCount][];
+        for(int square = 0; square<squareCount; square++){
+            matrix[square] = newZeroVector(squareCount);
+            if(square == end){
+                matrix[square][square] = BigInteger.ONE;
+                continue;
+            }
+            for(int i = moveTable.firstMove(square), last = moveTable.endMove(square); i<last; i++){
+                matrix[square][moveTable.moves[i]] = BigInteger.ONE;
+            }
+        }
+
+        BigInteger[][] power = null;
+        for(int exponent = maxSteps - 1; exponent>0; exponent >>>= 1){
+            if((exponent & 1) != 0){
+                power = power == null ? matrix : multiply(power, matrix);
+            }
+            if(exponent>1){
+                matrix = multiply(matrix, matrix);
+            }
+        }
+
+        BigInteger count = BigInteger.ZERO;
+        for(int i = moveTable.firstMove(start), last = moveTable.endMove(start); i<last; i++){
+            int firstMove = moveTable.moves[i];
+            if(power == null){
+                //single move walks
+                count = count.add(firstMove == end ? BigInteger.ONE : BigInteger.ZERO);
+            }
+            else {
+                count = count.add(power[firstMove][end]);
+            }
+        }
+        return count;
+    }
+
+    private static BigInteger[][] multiply(BigInteger[][] a, BigInteger[][] b) {
+        int size = a.length;
+        BigInteger[][] product = new BigInteger[size][];
+        for(int row = 0; row<size; row++){
+            product[row] = newZeroVector(size);
+            for(int k = 0; k<size; k++){
+                BigInteger value = a[row][k];
+                if(value.signum() == 0){
+                    continue;
+                }
+                BigInteger[] bRow = b[k];
+                for(int column = 0; column<size; column++){
+                    if(bRow[column].signum() != 0){
+                        product[row][column] = product[row][column].add(value.multiply(bRow[column]));
+                    }
+                }
+            }
+        }
+        return product;
+    }
+
+    private static BigInteger[] newZeroVector(int size) {
+        BigInteger[] vector = new BigInteger[size];
+        Arrays.fill(vector, BigInteger.ZERO);
+        return vector;
+    }
+}
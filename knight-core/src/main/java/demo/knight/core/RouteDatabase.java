@@ -0,0 +1,129 @@
+package demo.knight.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The routes of every start and end pair of one board, precomputed by {@link RouteDatabaseWriter}
+ * and read in place from a memory mapped file, so answering a query costs one offset lookup and
+ * decoding its routes instead of a search.
+ *
+ * File layout, big endian:
+ * - header: magic, version, width, height, maxSteps and bytes per square (1 for boards with fewer than 256 squares, else 2)
+ * - offset table: for every pair start*squareCount + end, the position of its routes in the file,
+ *   plus one last offset for the end of the file
+ * - routes: for each pair its routes in the order of {@link KnightRouteEngine#solveRoute}. Each
+ *   route is its number of squares followed by the squares between start and end, which the
+ *   query already knows
+ *
+ * Opening a database only reads the header, the rest is paged in by the operating system when a
+ * query needs it. Databases are built for knight routes without blocked squares, see {@link #supports}.
+ */
+public final class RouteDatabase {
+
+    static final int MAGIC = 0x4B524442; //"KRDB"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 6*4;
+
+    private final ByteBuffer buffer;
+    private final SolverConfig config;
+    private final int squareBytes;
+
+    /**
+     * @param buffer the database from its position to its limit, usually a {@link java.nio.MappedByteBuffer}. It is never
+     *               modified, and its position and byte order do not change how it is read
+     * @throws IOException if the buffer does not hold a database
+     */
+    public RouteDatabase(ByteBuffer buffer) throws IOException {
+        //absolute reads only, so queries can run on many threads
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if(this.buffer.capacity()<HEADER_BYTES || this.buffer.getInt(0) != MAGIC){
+            throw new IOException("Not a route database");
+        }
+        int version = this.buffer.getInt(4);
+        if(version != VERSION){
+            throw new IOException("Unsupported route database version " + version);
+        }
+        config = new SolverConfig(this.buffer.getInt(8), this.buffer.getInt(12), this.buffer.getInt(16));
+        squareBytes = this.buffer.getInt(20);
+        long squareCount = config.getSquareCount();
+        if(this.buffer.capacity()<HEADER_BYTES + (squareCount*squareCount + 1)*4){
+            throw new IOException("Truncated route database");
+        }
+    }
+
+    /**
+     * Memory maps the database file. The file can be closed or deleted afterwards
+     */
+    public static RouteDatabase open(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            FileChannel channel = input.getChannel();
+            return new RouteDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return the board and step limit the database was built for
+     */
+    public SolverConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return true if the routes of config can be read from this database. Routes are stored
+     *         with the fewest moves first, so queries with a lower step limit are supported too
+     */
+    public boolean supports(SolverConfig config) {
+        return config.getMaxSteps()<=this.config.getMaxSteps() && config.withMaxSteps(this.config.getMaxSteps()).equals(this.config);
+    }
+
+    /**
+     * @return the routes of {@link KnightRouteEngine#solveRoute} for the config of the database
+     */
+    public List<int[]> solveRoute(int start, int end) {
+        return solveRoute(config, start, end, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param config a config this database {@link #supports}
+     * @return the first limit routes of {@link KnightRouteEngine#solveRoute(SolverConfig, int, int, int)}
+     */
+    public List<int[]> solveRoute(SolverConfig config, int start, int end, int limit) {
+        if(!supports(config)){
+            throw new IllegalArgumentException("The route database for " + this.config + " can not solve " + config);
+        }
+        config.checkSquare(start);
+        config.checkSquare(end);
+        int pair = start*config.getSquareCount() + end;
+        int position = buffer.getInt(HEADER_BYTES + pair*4);
+        int endPosition = buffer.getInt(HEADER_BYTES + (pair + 1)*4);
+        ArrayList<int[]> routes = new ArrayList<>();
+        while (position<endPosition && routes.size()<limit){
+            int squareCount = readSquare(position);
+            if(squareCount - 1>config.getMaxSteps()){
+                //the remaining routes are longer still
+                break;
+            }
+            position += squareBytes;
+            int[] route = new int[squareCount];
+            route[0] = start;
+            route[squareCount - 1] = end;
+            for(int i = 1; i<squareCount - 1; i++){
+                route[i] = readSquare(position);
+                position += squareBytes;
+            }
+            routes.add(route);
+        }
+        return routes;
+    }
+
+    private int readSquare(int position) {
+        return squareBytes == 1 ? buffer.get(position) & 0xFF : buffer.getChar(position);
+    }
+}
@@ -0,0 +1,106 @@
+package demo.knight.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Builds a {@link RouteDatabase} file offline, for example during the build of the app:
+ *
+ *     java demo.knight.core.RouteDatabaseWriter 8 8 4 routes.bin
+ */
+public final class RouteDatabaseWriter {
+
+    private RouteDatabaseWriter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 4){
+            System.err.println("usage: RouteDatabaseWriter <width> <height> <maxSteps> <file>");
+            System.exit(1);
+        }
+        SolverConfig config = new SolverConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        File file = new File(args[3]);
+        File directory = file.getAbsoluteFile().getParentFile();
+        if(!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Can not create " + directory);
+        }
+        write(config, file);
+    }
+
+    /**
+     * Solves every start and end pair of config and writes the routes to file
+     */
+    public static void write(SolverConfig config, File file) throws IOException {
+        if(!config.equals(new SolverConfig(config.getWidth(), config.getHeight(), config.getMaxSteps()))){
+            throw new IllegalArgumentException("Route databases are built for knights on boards without blocked squares");
+        }
+        int squareCount = config.getSquareCount();
+        //a byte also holds the number of squares of a route, which is at most squareCount
+        int squareBytes = squareCount<256 ? 1 : 2;
+        long dataStart = RouteDatabase.HEADER_BYTES + ((long) squareCount*squareCount + 1)*4;
+        ByteBuffer offsets = ByteBuffer.allocate((int) (dataStart - RouteDatabase.HEADER_BYTES));
+        KnightRouteEngine engine = new KnightRouteEngine();
+
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(0);
+            FileChannel channel = output.getChannel();
+            channel.position(dataStart);
+            //the routes are written first, the offset table is filled in once their positions are known
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            long position = dataStart;
+            for(int start = 0; start<squareCount; start++){
+                for(int end = 0; end<squareCount; end++){
+                    offsets.putInt(checkPosition(position));
+                    List<int[]> routes = engine.solveRoute(config, start, end);
+                    for(int[] route:routes){
+                        writeSquare(data, route.length, squareBytes);
+                        for(int i = 1; i<route.length - 1; i++){
+                            writeSquare(data, route[i], squareBytes);
+                        }
+                        position += squareBytes*(long) Math.max(route.length - 1, 1);
+                    }
+                }
+            }
+            offsets.putInt(checkPosition(position));
+            data.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(RouteDatabase.HEADER_BYTES);
+            header.putInt(RouteDatabase.MAGIC).putInt(RouteDatabase.VERSION)
+                    .putInt(config.getWidth()).putInt(config.getHeight()).putInt(config.getMaxSteps())
+                    .putInt(squareBytes);
+            header.flip();
+            offsets.flip();
+            channel.position(0);
+            while (header.hasRemaining()){
+                channel.write(header);
+            }
+            while (offsets.hasRemaining()){
+                channel.write(offsets);
+            }
+        }
+    }
+
+    private static int checkPosition(long position) {
+        //the database is mapped into a single buffer
+        if(position>Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Route database larger than 2GB");
+        }
+        return (int) position;
+    }
+
+    private static void writeSquare(DataOutputStream data, int square, int squareBytes) throws IOException {
+        if(squareBytes == 1){
+            data.writeByte(square);
+        }
+        else {
+            data.writeChar(square);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package demo.knight.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily finds the routes of {@link KnightRouteEngine#solveRoute}, in the same order.
+ *
+ * Routes are found with iterative deepening: a depth first search for the routes with exactly
+ * the fewest possible moves, then one for the routes with two more moves and so on (every knight
+ * move changes the square color, so route lengths have the parity of the shortest one; pieces
+ * without a bipartite move table go one move at a time). The
+ * search keeps its state in explicit stacks and only runs when the next route is asked for,
+ * so the shortest route is ready almost at once and no work is done for routes never asked for.
+ */
+public final class RouteIterator implements Iterator<int[]> {
+
+    private final KnightMoveTable moveTable;
+    private final int[] distances; //moves needed to reach the end square from each square
+    private final int start, end, maxSteps;
+
+    private final int[] path;
+    private final int[] nextMoves; //for each square of the path, the adjacency list index of the next destination to try
+    private final long[] visited; //squares of the current path
+    private int routeLength; //number of moves of the routes currently searched for
+    private int step; //path[step] is the square the knight currently stands on
+
+    private int[] nextRoute;
+    private volatile boolean cancelled;
+    private final SolverStats stats; //null if stats are off
+    private boolean searchPhaseOpen; //the listener of stats was told that the search for routes of routeLength started
+    //counted for SolverStats, plain fields are cheap enough to always count
+    private long nodes, visitedPrunes, tooFarPrunes, earlyEndPrunes, routesFound, routeBytes;
+
+    RouteIterator(SolverConfig config, int start, int end) {
+        DistanceMap distanceMap = config.getDistanceMap(end);
+        this.moveTable = config.getMoveTable();
+        this.start = start;
+        this.end = end;
+        this.maxSteps = config.getMaxSteps();
+
+        distances = distanceMap.distances;
+        path = new int[Math.max(maxSteps, 0) + 1];
+        nextMoves = new int[path.length];
+        visited = new long[moveTable.getWordCount()];
+        stats = SolverStats.start(config, start, end);
+
+        int shortestRouteLength = distanceMap.getDistance(start);
+        if(start == end || shortestRouteLength>maxSteps){
+            routeLength = maxSteps + 1;
+        }
+        else {
+            routeLength = shortestRouteLength;
+            startSearch();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(nextRoute == null){
+            if(stats == null){
+                nextRoute = findNextRoute();
+            }
+            else {
+                //routes are timed one by one, the listener only hears of the route lengths
+                long searchStart = System.nanoTime();
+                nextRoute = findNextRoute();
+                stats.addPhaseNanos(SolverStats.Phase.SEARCH, System.nanoTime() - searchStart);
+                if(nextRoute == null){
+                    finishStats();
+                }
+            }
+        }
+        return nextRoute != null;
+    }
+
+    @Override
+    public int[] next() {
+        if(!hasNext()){
+            throw new NoSuchElementException();
+        }
+        int[] route = nextRoute;
+        nextRoute = null;
+        return route;
+    }
+
+    /**
+     * Stops the search. Can be called from any thread, after it the iterator has no more routes
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return the stats of this query, or null if stats are off
+     */
+    SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Reports the stats of the routes found so far, for iterators that are not iterated to the end. Only the first call counts
+     */
+    void finishStats() {
+        if(stats != null){
+            finishSearchPhase();
+            stats.nodes = nodes;
+            stats.prunes[SolverStats.Prune.VISITED.ordinal()] = visitedPrunes;
+            stats.prunes[SolverStats.Prune.TOO_FAR.ordinal()] = tooFarPrunes;
+            stats.prunes[SolverStats.Prune.EARLY_END.ordinal()] = earlyEndPrunes;
+            stats.routesFound = routesFound;
+            stats.allocatedBytes = routeBytes;
+            stats.finish();
+        }
+    }
+
+    /**
+     * @return the number of moves of the routes the search currently looks for. All shorter routes have been found
+     */
+    public int getRouteLength() {
+        return Math.min(routeLength, maxSteps);
+    }
+
+    private void startSearch() {
+        Arrays.fill(visited, 0);
+        step = 0;
+        nodes++;
+        path[0] = start;
+        nextMoves[0] = moveTable.firstMove(start);
+        BitBoard.add(visited, 0, start);
+    }
+
+    private void startSearchPhase() {
+        if(stats != null && !searchPhaseOpen && routeLength<=maxSteps){
+            searchPhaseOpen = true;
+            stats.phaseStarted(SolverStats.Phase.SEARCH);
+        }
+    }
+
+    private void finishSearchPhase() {
+        if(searchPhaseOpen){
+            searchPhaseOpen = false;
+            stats.phaseFinished(SolverStats.Phase.SEARCH);
+        }
+    }
+
+    private int[] findNextRoute() {
+        int[] moves = moveTable.moves;
+        startSearchPhase();
+        while (routeLength<=maxSteps && !cancelled){
+            while (step>=0 && !cancelled){
+                int square = path[step];
+                int moveIndex = nextMoves[step];
+                if(moveIndex == moveTable.endMove(square)){
+                    //all destinations of this square were tried, go back one move
+                    BitBoard.remove(visited, 0, square);
+                    step--;
+                    continue;
+                }
+                nextMoves[step] = moveIndex + 1;
+
+                int nextSquare = moves[moveIndex];
+                int movesLeft = routeLength - step - 1;
+                if(BitBoard.contains(visited, 0, nextSquare)){
+                    visitedPrunes++;
+                    continue;
+                }
+                if(nextSquare == end){
+                    if(movesLeft == 0){
+                        path[step+1] = end;
+                        nodes++;
+                        routesFound++;
+                        routeBytes += SolverStats.routeBytes(step + 2);
+                        return Arrays.copyOf(path, step + 2);
+                    }
+                    earlyEndPrunes++;
+                    continue;
+                }
+                if(distances[nextSquare]>movesLeft){
+                    tooFarPrunes++;
+                    continue;
+                }
+                nodes++;
+                step++;
+                path[step] = nextSquare;
+                nextMoves[step] = moveTable.firstMove(nextSquare);
+                BitBoard.add(visited, 0, nextSquare);
+            }
+            if(cancelled){
+                break;
+            }
+            finishSearchPhase();
+            routeLength += moveTable.routeLengthStep();
+            if(routeLength<=maxSteps){
+                startSearch();
+                startSearchPhase();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package demo.knight.core;
+
+import java.util.Comparator;
+
+/**
+ * The order in which {@link KnightRouteEngine} returns routes: routes with fewer moves first
+ * and routes with the same number of moves in the order the depth first search finds them.
+ * The search tries the destinations of a square in {@link KnightMoveTable} order, so at the
+ * first square where two routes split, the one that took the earlier destination comes first.
+ *
+ * Engines that find routes in a different order use this to return them in the same order.
+ */
+public final class RouteOrder implements Comparator<int[]> {
+
+    private final KnightMoveTable moveTable;
+
+    public RouteOrder(KnightMoveTable moveTable) {
+        this.moveTable = moveTable;
+    }
+
+    @Override
+    public int compare(int[] route1, int[] route2) {
+        if(route1.length != route2.length){
+            return Integer.compare(route1.length, route2.length);
+        }
+        if(route1[0] != route2[0]){
+            return Integer.compare(route1[0], route2[0]);
+        }
+        for(int i = 1; i<route1.length; i++){
+            if(route1[i] != route2[i]){
+                return Integer.compare(moveTable.indexOfMove(route1[i-1], route1[i]), moveTable.indexOfMove(route1[i-1], route2[i]));
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,47 @@
+package demo.knight.core;
+
+/**
+ * Read only, random access list of routes, wherever they are stored. Routes are arrays of squares,
+ * start and end included, see {@link Squares}.
+ *
+ * - {@link PackedRoutes} keeps them on the heap
+ * - {@link MappedRoutes} keeps them in a file that is memory mapped, for result sets larger than the heap
+ *
+ * Implementations are safe to read from many threads.
+ */
+public interface RouteResultSet {
+
+    int size();
+
+    /**
+     * @return number of squares of route index, start and end included
+     */
+    int getSquareCount(int index);
+
+    int getSquare(int index, int position);
+
+    /**
+     * @return a new array with the squares of route index
+     */
+    default int[] getRoute(int index) {
+        int[] route = new int[getSquareCount(index)];
+        for(int i = 0; i<route.length; i++){
+            route[i] = getSquare(index, i);
+        }
+        return route;
+    }
+
+    /**
+     * @return route index in algebraic notation, like "A8, C7, E8"
+     */
+    default String describe(int index, int width, int height) {
+        StringBuilder description = new StringBuilder();
+        for(int i = 0; i<getSquareCount(index); i++){
+            if(i>0){
+                description.append(", ");
+            }
+            Squares.appendAlgebraic(description, getSquare(index, i), width, height);
+        }
+        return description.toString();
+    }
+}
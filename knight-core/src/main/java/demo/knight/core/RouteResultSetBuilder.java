@@ -0,0 +1,188 @@
+package demo.knight.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+
+/**
+ * Collects routes into a {@link RouteResultSet} without holding them all on the heap.
+ *
+ * Routes are kept as {@link MappedRoutes} records in a heap buffer until it reaches the memory
+ * threshold. Then the buffer is written to a temporary file through a {@link FileChannel} and
+ * dropped, and every later route goes to the file too, through a small write buffer. The built
+ * result set memory maps the file, so the heap stays flat however many routes the query has.
+ *
+ * Feed it from {@link KnightRouteEngine#iterateRoutes}, which does not keep the routes either.
+ */
+public final class RouteResultSetBuilder implements Closeable {
+
+    private static final int WRITE_BUFFER_BYTES = 64*1024;
+    private static final int INITIAL_MEMORY_BYTES = 4*1024;
+    //the largest heap buffer, some VMs keep a few header words in arrays
+    private static final int MAX_MEMORY_BYTES = Integer.MAX_VALUE - 8;
+
+    private final int maxSquares;
+    private final int recordSize;
+    private final long memoryThresholdBytes;
+    private final File directory;
+
+    private ByteBuffer memory; //records on the heap, null once they were spilled to the file
+    private boolean spilled;
+    private File file;
+    private FileChannel channel;
+    private ByteBuffer writeBuffer;
+    private int size;
+
+    /**
+     * @param maxSquares           the most squares a route can have, {@link SolverConfig#getMaxSteps()} + 1 for route queries
+     * @param memoryThresholdBytes routes are written to a file once they take more than this. Thresholds
+     *                             above the largest heap buffer, almost 2GB, are lowered to it
+     * @param directory            where the file is created, usually the cache directory of the app
+     */
+    public RouteResultSetBuilder(int maxSquares, long memoryThresholdBytes, File directory) {
+        if(maxSquares<1 || maxSquares>Character.MAX_VALUE){
+            throw new IllegalArgumentException("Invalid route length: " + maxSquares);
+        }
+        if(memoryThresholdBytes<0){
+            throw new IllegalArgumentException("Invalid memory threshold: " + memoryThresholdBytes);
+        }
+        this.maxSquares = maxSquares;
+        this.recordSize = MappedRoutes.recordSize(maxSquares);
+        //the heap buffer is never larger than the threshold, so the casts to int below can not overflow
+        this.memoryThresholdBytes = Math.min(memoryThresholdBytes, MAX_MEMORY_BYTES);
+        this.directory = directory;
+        memory = ByteBuffer.allocate((int) Math.min(INITIAL_MEMORY_BYTES*(long) recordSize, Math.max(this.memoryThresholdBytes, recordSize)))
+                .order(ByteOrder.nativeOrder());
+    }
+
+    public void add(int[] route) throws IOException {
+        if(route.length>maxSquares){
+            throw new IllegalArgumentException("Route with " + route.length + " squares does not fit in a record of " + maxSquares);
+        }
+        if(size == Integer.MAX_VALUE){
+            throw new IllegalStateException("Too many routes");
+        }
+        ByteBuffer buffer = bufferFor(recordSize);
+        int recordEnd = buffer.position() + recordSize;
+        buffer.putChar((char) route.length);
+        for(int square:route){
+            if(square>Character.MAX_VALUE){
+                throw new IllegalArgumentException("Square " + square + " does not fit in a packed route");
+            }
+            buffer.putChar((char) square);
+        }
+        //the padding of the record is left as it is, it is never read
+        buffer.position(recordEnd);
+        size++;
+    }
+
+    public void addAll(Iterator<int[]> routes) throws IOException {
+        while (routes.hasNext()){
+            add(routes.next());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the routes did not fit in the memory threshold and are kept in a file
+     */
+    public boolean isSpilled() {
+        return spilled;
+    }
+
+    /**
+     * @return the routes added so far. The builder can not be used afterwards
+     */
+    public RouteResultSet build() throws IOException {
+        if(!spilled){
+            ByteBuffer records = memory;
+            memory = null;
+            records.flip();
+            return new MappedRoutes(new ByteBuffer[]{records}, recordSize, Math.max(size, 1), size);
+        }
+        flush();
+        int recordsPerSegment = Integer.MAX_VALUE/recordSize;
+        int segmentCount = (int) (((long) size + recordsPerSegment - 1)/recordsPerSegment);
+        ByteBuffer[] segments = new ByteBuffer[segmentCount];
+        try {
+            for(int i = 0; i<segmentCount; i++){
+                long first = (long) i*recordsPerSegment;
+                long records = Math.min(recordsPerSegment, size - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first*recordSize, records*recordSize).order(ByteOrder.nativeOrder());
+            }
+        }
+        finally {
+            close();
+        }
+        return new MappedRoutes(segments, recordSize, recordsPerSegment, size);
+    }
+
+    /**
+     * Closes and deletes the file. Mapped segments stay readable until they are garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        memory = null;
+        writeBuffer = null;
+        if(channel != null){
+            channel.close();
+            channel = null;
+        }
+        if(file != null){
+            //on Android and other unix systems the mapping outlives the file name
+            if(!file.delete()){
+                file.deleteOnExit();
+            }
+            file = null;
+        }
+    }
+
+    /**
+     * @return a buffer with room for bytes more bytes
+     */
+    private ByteBuffer bufferFor(int bytes) throws IOException {
+        if(memory != null){
+            if(memory.remaining()>=bytes){
+                return memory;
+            }
+            if(memory.position() + bytes<=memoryThresholdBytes){
+                ByteBuffer larger = ByteBuffer.allocate((int) Math.min(memory.capacity()*2L, memoryThresholdBytes)).order(ByteOrder.nativeOrder());
+                memory.flip();
+                larger.put(memory);
+                memory = larger;
+                return memory;
+            }
+            spill();
+        }
+        if(writeBuffer.remaining()<bytes){
+            flush();
+        }
+        return writeBuffer;
+    }
+
+    private void spill() throws IOException {
+        file = File.createTempFile("routes", ".bin", directory);
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        spilled = true;
+        writeBuffer = memory;
+        memory = null;
+        flush();
+        writeBuffer = ByteBuffer.allocate(Math.max(WRITE_BUFFER_BYTES, recordSize)).order(ByteOrder.nativeOrder());
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()){
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+}
@@ -0,0 +1,175 @@
+package demo.knight.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A route query that can run on any thread, reports its progress, hands over the routes
+ * it finds in batches while it runs, and can be cancelled from another thread.
+ *
+ * Routes arrive in the order of {@link KnightRouteEngine#solveRoute}. The first route found is
+ * handed over on its own, so the fastest route can be shown while the search goes on.
+ */
+public class RouteSearch implements Runnable {
+
+    public interface Listener {
+
+        /**
+         * @param routes the next routes found, in order. Called on the thread that runs the search
+         */
+        void onRoutesFound(List<int[]> routes);
+
+        /**
+         * @param routeLength all routes with fewer moves have been found
+         */
+        void onProgress(int routeLength, int maxSteps);
+
+        /**
+         * called once at the end of the search, also when it was cancelled
+         */
+        void onSearchFinished(boolean cancelled);
+    }
+
+    private final SolverConfig config;
+    private final int start, end;
+    private final int limit;
+    private final int batchSize;
+    private final RouteCache routeCache;
+    private final Listener listener;
+    private volatile RouteIterator routes; //created by run, on the thread of the search
+    private volatile boolean cancelled;
+    private boolean tooManyToCache;
+
+    /**
+     * @param batchSize the most routes handed to the listener at once
+     */
+    public RouteSearch(SolverConfig config, int start, int end, int batchSize, Listener listener) {
+        this(config, start, end, batchSize, null, listener);
+    }
+
+    /**
+     * @param routeCache if not null, cached routes are handed over without searching and the
+     *                   routes of a search that was not cancelled are added to the cache
+     */
+    public RouteSearch(SolverConfig config, int start, int end, int batchSize, RouteCache routeCache, Listener listener) {
+        this(config, start, end, Integer.MAX_VALUE, batchSize, routeCache, listener);
+    }
+
+    /**
+     * @param limit the search stops after this many routes, see {@link KnightRouteEngine#solveRoute(SolverConfig, int, int, int)}.
+     *              Routes of a search stopped by the limit are not added to the cache
+     */
+    public RouteSearch(SolverConfig config, int start, int end, int limit, int batchSize, RouteCache routeCache, Listener listener) {
+        this.config = config;
+        this.start = start;
+        this.end = end;
+        this.limit = limit;
+        this.batchSize = Math.max(batchSize, 1);
+        this.routeCache = routeCache;
+        this.listener = listener;
+        config.checkSquare(start);
+        config.checkSquare(end);
+    }
+
+    /**
+     * stops the search as soon as possible. Routes found before cancelling may still be handed over
+     */
+    public void cancel() {
+        cancelled = true;
+        RouteIterator routes = this.routes;
+        //a search that has not started yet sees the flag before its first route
+        if(routes != null){
+            routes.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void run() {
+        //the distance map and the stats of the query are built here, not on the thread that created the search
+        RouteIterator routes = new KnightRouteEngine().iterateRoutes(config, start, end);
+        this.routes = routes;
+        List<int[]> cachedRoutes = routeCache != null ? routeCache.get(config, start, end) : null;
+        if(cachedRoutes != null){
+            deliverAll(cachedRoutes.iterator(), null);
+        }
+        else {
+            ArrayList<int[]> foundRoutes = routeCache != null ? new ArrayList<int[]>() : null;
+            boolean complete = deliverAll(routes, foundRoutes);
+            if(foundRoutes != null && complete && !tooManyToCache){
+                routeCache.put(config, start, end, foundRoutes);
+            }
+        }
+        //routes taken from the cache are reported with no search nodes
+        routes.finishStats();
+        listener.onSearchFinished(isCancelled());
+    }
+
+    /**
+     * @param foundRoutes if not null the routes are also added to it, until they are too many for the cache
+     * @return true if every route was handed over, false if the search was cancelled or stopped by the limit
+     */
+    private boolean deliverAll(Iterator<int[]> routes, List<int[]> foundRoutes) {
+        long foundBytes = 0;
+        ArrayList<int[]> batch = new ArrayList<>();
+        int reportedLength = 0;
+        boolean firstRoute = true;
+        boolean complete = false;
+        int delivered = 0;
+        //the limit is checked before hasNext, which would already search for the next route
+        while (!isCancelled() && delivered<limit){
+            if(!routes.hasNext()){
+                complete = true;
+                break;
+            }
+            delivered++;
+            int[] route = routes.next();
+            if(foundRoutes != null){
+                foundRoutes.add(route);
+                //routes the cache would drop anyway are not kept, so huge queries run with a flat heap
+                foundBytes += 4 + 2*route.length;
+                if(foundBytes>routeCache.getMaxBytes()){
+                    foundRoutes.clear();
+                    foundRoutes = null;
+                    tooManyToCache = true;
+                }
+            }
+            int routeLength = route.length - 1;
+            if(routeLength != reportedLength){
+                //all the routes of the previous length were found
+                deliver(batch);
+                batch = new ArrayList<>();
+                listener.onProgress(routeLength, config.getMaxSteps());
+                reportedLength = routeLength;
+            }
+            batch.add(route);
+            if(firstRoute || batch.size() >= batchSize){
+                deliver(batch);
+                batch = new ArrayList<>();
+                firstRoute = false;
+            }
+        }
+        if(!isCancelled()){
+            deliver(batch);
+            listener.onProgress(config.getMaxSteps(), config.getMaxSteps());
+        }
+        return complete && !isCancelled();
+    }
+
+    private void deliver(ArrayList<int[]> batch) {
+        if(!batch.isEmpty() && !isCancelled()){
+            SolverStats stats = routes.getStats();
+            if(stats != null){
+                stats.beginPhase(SolverStats.Phase.DELIVER);
+            }
+            listener.onRoutesFound(batch);
+            if(stats != null){
+                stats.endPhase(SolverStats.Phase.DELIVER);
+            }
+        }
+    }
+}
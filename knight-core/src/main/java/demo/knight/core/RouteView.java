@@ -0,0 +1,46 @@
+package demo.knight.core;
+
+import java.util.Arrays;
+
+/**
+ * Read only view over the path of a running search, see {@link RouteVisitor}. Only valid during
+ * {@link RouteVisitor#visit}.
+ */
+public final class RouteView {
+
+    private final int[] path;
+    private int squareCount;
+
+    RouteView(int[] path) {
+        this.path = path;
+    }
+
+    void setSquareCount(int squareCount) {
+        this.squareCount = squareCount;
+    }
+
+    /**
+     * @return number of squares of the route, start and end included
+     */
+    public int getSquareCount() {
+        return squareCount;
+    }
+
+    public int getMoveCount() {
+        return squareCount - 1;
+    }
+
+    public int getSquare(int position) {
+        if(position<0 || position>=squareCount){
+            throw new IndexOutOfBoundsException("Position " + position + " of a route with " + squareCount + " squares");
+        }
+        return path[position];
+    }
+
+    /**
+     * @return a new array with the squares of the route
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(path, squareCount);
+    }
+}
@@ -0,0 +1,15 @@
+package demo.knight.core;
+
+/**
+ * Receives the routes of {@link KnightRouteEngine#visitRoutes} one by one, without a copy of
+ * each route. Callers that only count, filter or aggregate routes allocate nothing per route.
+ */
+public interface RouteVisitor {
+
+    /**
+     * @param route the route just found. The view and its squares are reused for the next route,
+     *              so copy the squares with {@link RouteView#toArray()} to keep them
+     * @return true to go on, false to stop the search
+     */
+    boolean visit(RouteView route);
+}
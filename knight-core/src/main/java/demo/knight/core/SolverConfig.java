@@ -0,0 +1,207 @@
+package demo.knight.core;
+
+import java.util.Arrays;
+
+/**
+ * Immutable settings of a route query: the piece that moves, the size of the board, the squares
+ * that can not be landed on and the most moves a route can have. Every query gets its config, so queries with
+ * different boards or step limits can run at the same time. Tables that depend only on the
+ * config are built once and shared by all queries.
+ */
+public final class SolverConfig {
+
+    //squares are packed in 16 bits, see PackedRoutes
+    public static final int MAX_SQUARES = 1 << 16;
+
+    private final int width, height;
+    private final int maxSteps;
+    private final Leaper leaper;
+    private final long[] blockedSquares; //bitboard of the blocked squares, null if no square is blocked
+    private volatile KnightMoveTable moveTable;
+    private volatile int symmetries = -1; //bit i is set if BoardSymmetry.values()[i] maps this board to itself
+
+    public SolverConfig(int width, int height, int maxSteps) {
+        this(width, height, maxSteps, Leaper.KNIGHT, null, null);
+    }
+
+    private SolverConfig(int width, int height, int maxSteps, Leaper leaper, long[] blockedSquares, KnightMoveTable moveTable) {
+        if(width<=0 || height<=0 || (long) width*height>MAX_SQUARES){
+            throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+        }
+        if(maxSteps<0){
+            throw new IllegalArgumentException("Invalid step limit: " + maxSteps);
+        }
+        this.width = width;
+        this.height = height;
+        this.maxSteps = maxSteps;
+        this.leaper = leaper;
+        this.blockedSquares = blockedSquares;
+        this.moveTable = moveTable;
+    }
+
+    /**
+     * @return the config of a boardSize x boardSize board
+     */
+    public static SolverConfig square(int boardSize, int maxSteps) {
+        return new SolverConfig(boardSize, boardSize, maxSteps);
+    }
+
+    public SolverConfig withMaxSteps(int maxSteps) {
+        //the move table does not depend on the step limit, so it is shared with the new config
+        return new SolverConfig(width, height, maxSteps, leaper, blockedSquares, moveTable);
+    }
+
+    /**
+     * @return a config for routes of leaper instead of the knight. Every engine works with any leaper
+     */
+    public SolverConfig withLeaper(Leaper leaper) {
+        return new SolverConfig(width, height, maxSteps, leaper, blockedSquares, null);
+    }
+
+    /**
+     * Blocked squares are obstacles: routes never start, land on or end on them.
+     *
+     * @param blockedSquares a bitboard with a bit for every blocked square, see {@link BitBoard}. It is copied
+     */
+    public SolverConfig withBlockedSquares(long[] blockedSquares) {
+        int squareCount = getSquareCount();
+        if(blockedSquares.length != BitBoard.wordCount(squareCount)){
+            throw new IllegalArgumentException("A " + width + "x" + height + " board needs " + BitBoard.wordCount(squareCount) + " words of blocked squares");
+        }
+        boolean anyBlocked = false;
+        for(long word:blockedSquares){
+            anyBlocked |= word != 0;
+        }
+        int usedBits = squareCount & 63;
+        if(usedBits != 0 && (blockedSquares[blockedSquares.length - 1] >>> usedBits) != 0){
+            throw new IllegalArgumentException("Blocked squares outside the board");
+        }
+        return new SolverConfig(width, height, maxSteps, leaper, anyBlocked ? blockedSquares.clone() : null, null);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    public Leaper getLeaper() {
+        return leaper;
+    }
+
+    public int getSquareCount() {
+        return width*height;
+    }
+
+    public boolean isSquareBoard() {
+        return width == height;
+    }
+
+    public boolean isBlocked(int square) {
+        return blockedSquares != null && BitBoard.contains(blockedSquares, 0, square);
+    }
+
+    /**
+     * @return a copy of the blocked squares bitboard
+     */
+    public long[] getBlockedSquares() {
+        return blockedSquares != null ? blockedSquares.clone() : new long[BitBoard.wordCount(getSquareCount())];
+    }
+
+    /**
+     * @return true if symmetry maps the board and its blocked squares to themselves, so it also
+     *         maps the routes of a query to the routes of the mapped query
+     */
+    public boolean hasSymmetry(BoardSymmetry symmetry) {
+        int mask = symmetries;
+        if(mask == -1){
+            mask = 0;
+            for(BoardSymmetry candidate:BoardSymmetry.values()){
+                if(candidate.isSymmetryOf(width, height) && mapsBlockedSquaresToThemselves(candidate)){
+                    mask |= 1 << candidate.ordinal();
+                }
+            }
+            symmetries = mask;
+        }
+        return (mask & (1 << symmetry.ordinal())) != 0;
+    }
+
+    private boolean mapsBlockedSquaresToThemselves(BoardSymmetry symmetry) {
+        if(blockedSquares == null){
+            return true;
+        }
+        for(int square = 0; square<getSquareCount(); square++){
+            if(isBlocked(square) != isBlocked(symmetry.apply(square, width, height))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int squareAt(int row, int column) {
+        return Squares.index(row, column, width);
+    }
+
+    public String toAlgebraic(int square) {
+        return Squares.toAlgebraic(square, width, height);
+    }
+
+    public KnightMoveTable getMoveTable() {
+        KnightMoveTable table = moveTable;
+        if(table == null){
+            //the table is looked up in the shared caches, so building it here from many threads at once is harmless.
+            //Moves to and from blocked squares are removed once there instead of being tested on every expansion
+            table = blockedSquares == null ? KnightMoveTable.forBoard(leaper, width, height)
+                    : KnightMoveTable.forBlockedBoard(leaper, width, height, blockedSquares);
+            moveTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * @return the distances to target on this board, see {@link DistanceMap}
+     */
+    public DistanceMap getDistanceMap(int target) {
+        return getMoveTable().getDistanceMap(target);
+    }
+
+    void checkSquare(int square) {
+        if(square<0 || square>=getSquareCount()){
+            throw new IllegalArgumentException("Square " + square + " is not on a " + width + "x" + height + " board");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SolverConfig config = (SolverConfig) o;
+        return width == config.width && height == config.height && maxSteps == config.maxSteps
+                && leaper.equals(config.leaper) && Arrays.equals(blockedSquares, config.blockedSquares);
+    }
+
+    @Override
+    public int hashCode() {
+        return (((width*31 + height)*31 + maxSteps)*31 + leaper.hashCode())*31 + Arrays.hashCode(blockedSquares);
+    }
+
+    @Override
+    public String toString() {
+        String blocked = "";
+        if(blockedSquares != null){
+            int blockedCount = 0;
+            for(long word:blockedSquares){
+                blockedCount += Long.bitCount(word);
+            }
+            blocked = ", " + blockedCount + " blocked squares";
+        }
+        return leaper + " on " + width + "x" + height + " board, " + maxSteps + " steps" + blocked;
+    }
+}
@@ -0,0 +1,187 @@
+package demo.knight.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a single route query did: the search nodes it expanded, the branches it pruned and why,
+ * the routes it found, the time of each phase and an estimate of the bytes its routes allocated.
+ *
+ * Stats are only collected while a {@link Listener} is set with {@link #setListener}, and it
+ * is called with the stats of every query of {@link KnightRouteEngine#solveRoute} and
+ * {@link RouteIterator}, so also of {@link RouteSearch}. The engines always count in plain
+ * fields, so leaving the listener on costs two clock reads per phase, and per route handed out
+ * by a {@link RouteIterator}. Listener calls happen once per phase, or once per route length for
+ * the search of an iterator, never once per route.
+ *
+ * Routes that would land on a square twice are pruned as {@link Prune#VISITED} before they are
+ * complete, so no route is ever found and then discarded.
+ */
+public final class SolverStats {
+
+    public enum Prune {
+        /** the square is already on the route, the route would walk in a circle */
+        VISITED,
+        /** the end square can not be reached with the moves left */
+        TOO_FAR,
+        /** the end square was reached with moves left, {@link RouteIterator} only keeps routes of the length it looks for */
+        EARLY_END
+    }
+
+    public enum Phase {
+        /** the depth first search, building the route arrays included */
+        SEARCH,
+        /** joining the routes grouped by length into the order of {@link KnightRouteEngine#solveRoute} */
+        JOIN,
+        /** handing routes to a {@link RouteSearch.Listener}, where the app builds its solutions */
+        DELIVER
+    }
+
+    public interface Listener {
+
+        /**
+         * Phases start and finish on the thread of the query, so they can be traced with android.os.Trace.
+         * They nest like trace sections: the search of a {@link RouteIterator} is a phase for every route
+         * length, and the {@link Phase#DELIVER} of its routes happens inside it
+         */
+        default void onPhaseStarted(Phase phase) {
+        }
+
+        default void onPhaseFinished(Phase phase) {
+        }
+
+        /**
+         * Called once, on the thread of the query, when it has found all its routes, was stopped
+         * by a limit or was cancelled
+         */
+        void onQueryFinished(SolverStats stats);
+    }
+
+    private static volatile Listener listener;
+
+    private final Listener queryListener;
+    private final SolverConfig config;
+    private final int start, end;
+    long nodes;
+    final long[] prunes = new long[Prune.values().length];
+    long routesFound;
+    long allocatedBytes;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long phaseStart;
+    private boolean finished;
+
+    private SolverStats(Listener queryListener, SolverConfig config, int start, int end) {
+        this.queryListener = queryListener;
+        this.config = config;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @param listener called with the stats of every query from now on, on any thread. Null turns stats off
+     */
+    public static void setListener(Listener listener) {
+        SolverStats.listener = listener;
+    }
+
+    /**
+     * @return the stats of a new query, or null if no listener is set
+     */
+    static SolverStats start(SolverConfig config, int start, int end) {
+        Listener listener = SolverStats.listener;
+        return listener != null ? new SolverStats(listener, config, start, end) : null;
+    }
+
+    /**
+     * @return approximate heap size of a route array with squareCount squares, and its reference in a list
+     */
+    static long routeBytes(int squareCount) {
+        return ((16 + 4L*squareCount + 7) & ~7L) + 4;
+    }
+
+    void beginPhase(Phase phase) {
+        queryListener.onPhaseStarted(phase);
+        phaseStart = System.nanoTime();
+    }
+
+    void endPhase(Phase phase) {
+        phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStart;
+        queryListener.onPhaseFinished(phase);
+    }
+
+    /**
+     * Tells the listener that phase started without timing it, for phases timed in pieces with {@link #addPhaseNanos}
+     */
+    void phaseStarted(Phase phase) {
+        queryListener.onPhaseStarted(phase);
+    }
+
+    void phaseFinished(Phase phase) {
+        queryListener.onPhaseFinished(phase);
+    }
+
+    void addPhaseNanos(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    void finish() {
+        if(!finished){
+            finished = true;
+            queryListener.onQueryFinished(this);
+        }
+    }
+
+    public SolverConfig getConfig() {
+        return config;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return squares the search moved to, every square of a route that was found included
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getPrunes(Prune reason) {
+        return prunes[reason.ordinal()];
+    }
+
+    public long getRoutesFound() {
+        return routesFound;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return approximate bytes of the route arrays the query allocated
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder();
+        description.append(config.toAlgebraic(start)).append('-').append(config.toAlgebraic(end)).append(' ').append(config)
+                .append(": nodes=").append(nodes)
+                .append(" routes=").append(routesFound)
+                .append(" bytes=").append(allocatedBytes);
+        for(Prune reason:Prune.values()){
+            description.append(' ').append(reason.name().toLowerCase()).append('=').append(prunes[reason.ordinal()]);
+        }
+        for(Phase phase:Phase.values()){
+            description.append(' ').append(phase.name().toLowerCase()).append('=')
+                    .append(TimeUnit.NANOSECONDS.toMicros(phaseNanos[phase.ordinal()])).append("us");
+        }
+        return description.toString();
+    }
+}
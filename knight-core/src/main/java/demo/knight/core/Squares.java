@@ -0,0 +1,40 @@
+package demo.knight.core;
+
+/**
+ * Helper methods for the int encoding of chess board squares that the solver engine uses.
+ * A square is encoded as row*width+column, with row 0 being the top row of the board.
+ */
+public class Squares {
+
+    private Squares() {
+    }
+
+    public static int index(int row, int column, int width) {
+        return row*width + column;
+    }
+
+    public static int row(int square, int width) {
+        return square/width;
+    }
+
+    public static int column(int square, int width) {
+        return square%width;
+    }
+
+    /**
+     * @return the name of the square in algebraic notation, like A8. Columns after Z are named AA, AB and so on
+     */
+    public static String toAlgebraic(int square, int width, int height) {
+        StringBuilder name = new StringBuilder();
+        appendAlgebraic(name, square, width, height);
+        return name.toString();
+    }
+
+    public static void appendAlgebraic(StringBuilder name, int square, int width, int height) {
+        int start = name.length();
+        for(int column = column(square, width) + 1; column>0; column = (column - 1)/26){
+            name.insert(start, (char) ('A' + (column - 1)%26));
+        }
+        name.append(height - row(square, width));
+    }
+}
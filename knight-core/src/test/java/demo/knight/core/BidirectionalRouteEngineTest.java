@@ -0,0 +1,32 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BidirectionalRouteEngineTest {
+
+    @Test
+    public void findsSameRoutesInSameOrderAsDepthFirstSearch() {
+        int boardSize = 8;
+        int[][] queries = {{0, 1}, {0, 10}, {0, 63}, {27, 36}, {7, 56}};
+        for (int maxSteps = 1; maxSteps <= 7; maxSteps++) {
+            for (int[] query : queries) {
+                List<int[]> expected = new KnightRouteEngine().solveRoute(SolverConfig.square(boardSize, maxSteps), query[0], query[1]);
+                List<int[]> routes = new BidirectionalRouteEngine().solveRoute(SolverConfig.square(boardSize, maxSteps), query[0], query[1]);
+
+                assertEquals(expected.size(), routes.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertArrayEquals(expected.get(i), routes.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void startAndEndOnSameSquare() {
+        assertTrue(new BidirectionalRouteEngine().solveRoute(SolverConfig.square(8, 6), 27, 27).isEmpty());
+    }
+}
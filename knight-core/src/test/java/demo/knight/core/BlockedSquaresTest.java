@@ -0,0 +1,96 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BlockedSquaresTest {
+
+    @Test
+    public void routesAvoidBlockedSquares() {
+        SolverConfig free = SolverConfig.square(6, 5);
+        SolverConfig blocked = free.withBlockedSquares(new long[]{(1L << 13) | (1L << 16) | (1L << 21)});
+
+        for (int[] query : new int[][]{{0, 35}, {0, 1}, {7, 28}, {14, 14}}) {
+            List<int[]> expected = new ArrayList<>();
+            for (int[] route : new KnightRouteEngine().solveRoute(free, query[0], query[1])) {
+                if (!usesBlockedSquare(blocked, route)) {
+                    expected.add(route);
+                }
+            }
+            assertRoutesEqual(expected, new KnightRouteEngine().solveRoute(blocked, query[0], query[1]));
+            assertRoutesEqual(expected, new BidirectionalRouteEngine().solveRoute(blocked, query[0], query[1]));
+            assertRoutesEqual(expected, new ParallelRouteEngine().solveRoute(blocked, query[0], query[1]));
+            assertEquals(expected.size(), new RouteCounter().countRoutes(blocked, query[0], query[1]));
+        }
+    }
+
+    @Test
+    public void distancesGoAroundBlockedSquares() {
+        //on a 3 columns x 4 rows board C3 is a single move away from A4, once it is blocked nothing can land on it
+        SolverConfig config = new SolverConfig(3, 4, 6);
+        int a4 = config.squareAt(0, 0);
+        int c3 = config.squareAt(1, 2);
+        assertEquals(1, config.getDistanceMap(c3).getDistance(a4));
+
+        SolverConfig blocked = config.withBlockedSquares(new long[]{1L << c3});
+        assertEquals(DistanceMap.UNREACHABLE, blocked.getDistanceMap(c3).getDistance(a4));
+        assertTrue(new KnightRouteEngine().solveRoute(blocked, a4, c3).isEmpty());
+        assertTrue(new KnightRouteEngine().solveRoute(blocked, c3, a4).isEmpty());
+        assertEquals(0, new RouteCounter().countWalks(blocked, a4, c3));
+    }
+
+    @Test
+    public void cacheOnlyUsesSymmetriesOfTheBlockedSquares() {
+        SolverConfig config = SolverConfig.square(5, 4);
+        //blocking the center keeps all 8 symmetries, blocking B4 keeps only the transpose
+        SolverConfig center = config.withBlockedSquares(new long[]{1L << 12});
+        SolverConfig b4 = config.withBlockedSquares(new long[]{1L << 6});
+        for (BoardSymmetry symmetry : BoardSymmetry.values()) {
+            assertTrue(center.hasSymmetry(symmetry));
+            assertEquals(symmetry == BoardSymmetry.IDENTITY || symmetry == BoardSymmetry.TRANSPOSE, b4.hasSymmetry(symmetry));
+        }
+
+        RouteCache cache = new RouteCache(Long.MAX_VALUE);
+        KnightRouteEngine engine = new KnightRouteEngine();
+        for (int start = 0; start < 25; start++) {
+            assertRoutesEqual(engine.solveRoute(b4, start, 24 - start), cache.solveRoute(b4, start, 24 - start));
+        }
+        //blocked and free boards never share entries
+        assertNull(cache.get(config, 0, 24));
+    }
+
+    @Test
+    public void configsWithTheSameBlockedSquaresShareTheirTable() {
+        SolverConfig config = SolverConfig.square(8, 4).withBlockedSquares(new long[]{1L << 27});
+        SolverConfig sameSquares = SolverConfig.square(8, 6).withBlockedSquares(new long[]{1L << 27});
+
+        assertSame(config.getMoveTable(), sameSquares.getMoveTable());
+        assertSame(config.getDistanceMap(63), sameSquares.getDistanceMap(63));
+        assertNotSame(config.getMoveTable(), SolverConfig.square(8, 4).withBlockedSquares(new long[]{1L << 28}).getMoveTable());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void blockedSquaresMustBeOnTheBoard() {
+        SolverConfig.square(5, 4).withBlockedSquares(new long[]{1L << 25});
+    }
+
+    private boolean usesBlockedSquare(SolverConfig config, int[] route) {
+        for (int square : route) {
+            if (config.isBlocked(square)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void assertRoutesEqual(List<int[]> expected, List<int[]> routes) {
+        assertEquals(expected.size(), routes.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), routes.get(i));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DistanceMapTest {
+
+    @Test
+    public void knightDistancesOnStandardBoard() {
+        DistanceMap distanceMap = DistanceMap.toSquare(KnightMoveTable.forBoard(8, 8), 0);
+
+        assertEquals(0, distanceMap.getDistance(0));
+        assertEquals(1, distanceMap.getDistance(10));
+        //A8 -> B7 is the famous 4 move corner case
+        assertEquals(4, distanceMap.getDistance(9));
+        //A8 -> H1
+        assertEquals(6, distanceMap.getDistance(63));
+    }
+
+    @Test
+    public void squaresThatCanNotBeReached() {
+        //the knight can not move at all from the center of a 3x3 board
+        DistanceMap distanceMap = DistanceMap.toSquare(KnightMoveTable.forBoard(3, 3), 0);
+        assertEquals(DistanceMap.UNREACHABLE, distanceMap.getDistance(4));
+        assertEquals(1, distanceMap.getDistance(5));
+        assertEquals(2, distanceMap.getDistance(2));
+    }
+}
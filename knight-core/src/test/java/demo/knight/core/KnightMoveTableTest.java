@@ -0,0 +1,69 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KnightMoveTableTest {
+
+    @Test
+    public void cornerAndCenterDestinations() {
+        KnightMoveTable table = KnightMoveTable.forBoard(8, 8);
+
+        //A8 -> C7, B6
+        assertEquals(2, table.getDestinationCount(0));
+        assertEquals(17, table.destination(table.firstMove(0)));
+        assertEquals(10, table.destination(table.firstMove(0) + 1));
+        //D5
+        assertEquals(8, table.getDestinationCount(27));
+        assertTrue(table.isMove(0, 10));
+        assertFalse(table.isMove(0, 9));
+    }
+
+    @Test
+    public void movesAreSymmetricOnRectangularBoards() {
+        KnightMoveTable table = KnightMoveTable.forBoard(13, 5);
+        assertEquals(2, table.getWordCount());
+
+        for (int square = 0; square < table.getSquareCount(); square++) {
+            for (int i = table.firstMove(square); i < table.endMove(square); i++) {
+                assertTrue(table.isMove(square, table.destination(i)));
+                assertTrue(table.isMove(table.destination(i), square));
+            }
+        }
+        //the bottom right corner of a 13 columns x 5 rows board
+        assertEquals(2, table.getDestinationCount(64));
+        assertTrue(table.isMove(64, 49));
+        assertTrue(table.isMove(64, 37));
+    }
+
+    @Test
+    public void isMoveAgreesWithTheAdjacencyList() {
+        long[] blocked = new long[1];
+        BitBoard.add(blocked, 0, 10);
+        //a blocked table with destination masks and a board too large for them
+        KnightMoveTable[] tables = {KnightMoveTable.forBoard(8, 8).withBlockedSquares(blocked), KnightMoveTable.forBoard(40, 30)};
+        for(KnightMoveTable table:tables){
+            for(int square = 0; square<table.getSquareCount(); square++){
+                int moves = 0;
+                for(int to = 0; to<table.getSquareCount(); to++){
+                    int index = table.indexOfMove(square, to);
+                    assertEquals(index >= 0, table.isMove(square, to));
+                    if(index >= 0){
+                        assertEquals(to, table.destination(table.firstMove(square) + index));
+                        moves++;
+                    }
+                }
+                assertEquals(table.getDestinationCount(square), moves);
+            }
+        }
+        assertFalse(tables[0].isMove(0, 10));
+        assertTrue(tables[0].isMove(0, 17));
+    }
+
+    @Test
+    public void tablesAreCachedPerBoardSize() {
+        assertSame(KnightMoveTable.forBoard(8, 8), KnightMoveTable.forBoard(8, 8));
+        assertNotSame(KnightMoveTable.forBoard(8, 6), KnightMoveTable.forBoard(6, 8));
+    }
+}
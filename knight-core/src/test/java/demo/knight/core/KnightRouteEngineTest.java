@@ -0,0 +1,157 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class KnightRouteEngineTest {
+
+    private static final int BOARD_SIZE = 8;
+
+    @Test
+    public void findsAllRoutesFasterFirst() {
+        //A8 -> B8
+        List<int[]> routes = new KnightRouteEngine().solveRoute(SolverConfig.square(BOARD_SIZE, 4), 0, 1);
+
+        assertEquals(2, routes.size());
+        assertArrayEquals(new int[]{0, 17, 11, 1}, routes.get(0));
+        assertArrayEquals(new int[]{0, 10, 16, 1}, routes.get(1));
+    }
+
+    @Test
+    public void routesAreSortedAndHaveNoCircles() {
+        //A8 -> C7
+        List<int[]> routes = new KnightRouteEngine().solveRoute(SolverConfig.square(BOARD_SIZE, 4), 0, 10);
+
+        assertArrayEquals(new int[]{0, 10}, routes.get(0));
+        for (int i = 0; i < routes.size(); i++) {
+            int[] route = routes.get(i);
+            if (i > 0) {
+                assertTrue(routes.get(i - 1).length <= route.length);
+            }
+            for (int j = 0; j < route.length; j++) {
+                for (int k = j + 1; k < route.length; k++) {
+                    assertNotEquals(route[j], route[k]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void returnsNothingWhenDestinationIsTooFar() {
+        //A8 -> H1 needs 6 moves
+        assertTrue(new KnightRouteEngine().solveRoute(SolverConfig.square(BOARD_SIZE, 4), 0, 63).isEmpty());
+    }
+
+    @Test
+    public void returnsNothingWhenStartIsTheDestination() {
+        assertTrue(new KnightRouteEngine().solveRoute(SolverConfig.square(BOARD_SIZE, 6), 27, 27).isEmpty());
+        assertFalse(new KnightRouteEngine().iterateRoutes(SolverConfig.square(BOARD_SIZE, 6), 27, 27).hasNext());
+    }
+
+    @Test
+    public void iteratorFindsSameRoutesInSameOrder() {
+        KnightRouteEngine engine = new KnightRouteEngine();
+        for (int maxSteps = 1; maxSteps <= 6; maxSteps++) {
+            List<int[]> expected = engine.solveRoute(SolverConfig.square(BOARD_SIZE, maxSteps), 27, 36);
+            List<int[]> routes = new ArrayList<>();
+            Iterator<int[]> iterator = engine.iterateRoutes(SolverConfig.square(BOARD_SIZE, maxSteps), 27, 36);
+            while (iterator.hasNext()) {
+                routes.add(iterator.next());
+            }
+
+            assertEquals(expected.size(), routes.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), routes.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void streamStopsAfterTheRoutesItNeeds() {
+        List<int[]> routes = new KnightRouteEngine().streamRoutes(SolverConfig.square(BOARD_SIZE, 8), 0, 10).limit(2).collect(Collectors.toList());
+
+        assertEquals(2, routes.size());
+        assertArrayEquals(new int[]{0, 10}, routes.get(0));
+        assertEquals(4, routes.get(1).length);
+    }
+
+    @Test
+    public void shortestRoutesAreTheFirstRoutesOfSolveRoute() {
+        KnightRouteEngine engine = new KnightRouteEngine();
+        SolverConfig config = SolverConfig.square(BOARD_SIZE, 6);
+        for (int end = 0; end < 64; end++) {
+            List<int[]> shortestRoutes = engine.solveShortestRoutes(config.withMaxSteps(0), 0, end);
+            List<int[]> routes = engine.solveRoute(config, 0, end);
+            assertEquals(new RouteCounter().countShortestRoutes(config, 0, end), shortestRoutes.size());
+            for (int i = 0; i < shortestRoutes.size(); i++) {
+                assertArrayEquals(routes.get(i), shortestRoutes.get(i));
+            }
+            if (routes.size() > shortestRoutes.size()) {
+                assertTrue(routes.get(shortestRoutes.size()).length > routes.get(0).length);
+            }
+        }
+    }
+
+    @Test
+    public void shortestRoutesLongerThanTheStepLimit() {
+        SolverConfig config = SolverConfig.square(64, 4);
+        int end = config.squareAt(36, 24);
+        List<int[]> routes = new KnightRouteEngine().solveShortestRoutes(config, 0, end);
+
+        assertTrue(new KnightRouteEngine().solveRoute(config, 0, end).isEmpty());
+        assertEquals(4845, routes.size());
+        for (int[] route : routes) {
+            assertEquals(21, route.length);
+            assertEquals(end, route[20]);
+        }
+        //far too many to list, but they can be counted
+        assertEquals(538257874440L, new RouteCounter().countShortestRoutes(config, 0, config.squareAt(63, 63)));
+    }
+
+    @Test
+    public void shortestRoutesStopAtTheLimit() {
+        SolverConfig config = SolverConfig.square(64, 4);
+        int end = config.squareAt(36, 24);
+        List<int[]> routes = new KnightRouteEngine().solveShortestRoutes(config, 0, end);
+        List<int[]> firstRoutes = new KnightRouteEngine().solveShortestRoutes(config, 0, end, 1000);
+
+        assertEquals(1000, firstRoutes.size());
+        for (int i = 0; i < firstRoutes.size(); i++) {
+            assertArrayEquals(routes.get(i), firstRoutes.get(i));
+        }
+    }
+
+    @Test
+    public void topRoutesAreTheFirstRoutesOfSolveRoute() {
+        SolverConfig config = SolverConfig.square(BOARD_SIZE, 6);
+        List<int[]> routes = new KnightRouteEngine().solveRoute(config, 0, 63);
+        for (int limit : new int[]{0, 1, 7, 100, routes.size() + 1}) {
+            List<int[]> topRoutes = new KnightRouteEngine().solveRoute(config, 0, 63, limit);
+            assertEquals(Math.min(limit, routes.size()), topRoutes.size());
+            for (int i = 0; i < topRoutes.size(); i++) {
+                assertArrayEquals(routes.get(i), topRoutes.get(i));
+            }
+            List<int[]> cachedRoutes = new RouteCache(Long.MAX_VALUE).solveRoute(config, 0, 63, limit);
+            assertEquals(topRoutes.size(), cachedRoutes.size());
+        }
+    }
+
+    @Test
+    public void topRoutesOnLargeBoardsOnlySearchTheShortLengths() {
+        //listing every route with up to 12 moves between these squares would take very long
+        SolverConfig config = SolverConfig.square(64, 12);
+        List<int[]> routes = new KnightRouteEngine().solveRoute(config, config.squareAt(30, 30), config.squareAt(31, 32), 50);
+
+        assertEquals(50, routes.size());
+        assertEquals(2, routes.get(0).length);
+        for (int i = 1; i < routes.size(); i++) {
+            assertTrue(routes.get(i - 1).length <= routes.get(i).length);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class KnightTourEngineTest {
+
+    private static final long BUDGET_MILLIS = 10000;
+
+    @Test
+    public void openAndClosedToursFromEverySquareOf8x8() throws TimeoutException {
+        SolverConfig config = SolverConfig.square(8, 0);
+        KnightTourEngine engine = new KnightTourEngine();
+        for (int start = 0; start < 64; start++) {
+            assertTour(config, start, 64, false, engine.findFullTour(config, start, false, BUDGET_MILLIS));
+            assertTour(config, start, 64, true, engine.findFullTour(config, start, true, BUDGET_MILLIS));
+        }
+    }
+
+    @Test
+    public void smallAndLargeBoards() throws TimeoutException {
+        KnightTourEngine engine = new KnightTourEngine();
+        for (int size : new int[]{5, 6, 7, 31, 50}) {
+            SolverConfig config = SolverConfig.square(size, 0);
+            assertTour(config, 0, size*size, false, engine.findFullTour(config, 0, false, BUDGET_MILLIS));
+            if (size % 2 == 0) {
+                assertTour(config, 0, size*size, true, engine.findFullTour(config, 0, true, BUDGET_MILLIS));
+            }
+            else {
+                //a closed tour lands on an even number of squares
+                assertNull(engine.findFullTour(config, 0, true, BUDGET_MILLIS));
+            }
+        }
+    }
+
+    @Test
+    public void partialTours() throws TimeoutException {
+        SolverConfig config = SolverConfig.square(8, 0);
+        KnightTourEngine engine = new KnightTourEngine();
+        assertTour(config, 27, 20, false, engine.findTour(config, 27, 20, false, BUDGET_MILLIS));
+        assertTour(config, 27, 20, true, engine.findTour(config, 27, 20, true, BUDGET_MILLIS));
+        assertNull(engine.findTour(config, 27, 21, true, BUDGET_MILLIS));
+    }
+
+    @Test
+    public void toursWithoutSolutionAreFoundToBeImpossible() throws TimeoutException {
+        //on a 5x5 board the tour needs 13 squares of the color of the corners, B5 has the other color
+        assertNull(new KnightTourEngine().findFullTour(SolverConfig.square(5, 0), 1, false, BUDGET_MILLIS));
+        //3x3 boards have an unreachable center square
+        assertNull(new KnightTourEngine().findFullTour(SolverConfig.square(3, 0), 0, false, BUDGET_MILLIS));
+    }
+
+    @Test
+    public void toursAvoidBlockedSquares() throws TimeoutException {
+        //one blocked square of each color, a closed tour needs as many light squares as dark ones
+        SolverConfig config = SolverConfig.square(6, 0).withBlockedSquares(new long[]{(1L << 14) | (1L << 15)});
+        int[] tour = new KnightTourEngine().findFullTour(config, 0, true, BUDGET_MILLIS);
+        assertTour(config, 0, 34, true, tour);
+    }
+
+    @Test
+    public void colorCountsRuleOutFullToursWithoutSearching() throws TimeoutException {
+        //no time budget, so these would time out if they were searched
+        assertNull(new KnightTourEngine().findFullTour(SolverConfig.square(5, 0), 1, false, 0));
+        //two blocked squares of the same color leave 16 free squares of it and 18 of the other
+        SolverConfig config = SolverConfig.square(6, 0).withBlockedSquares(new long[]{(1L << 0) | (1L << 2)});
+        assertNull(new KnightTourEngine().findFullTour(config, 1, false, 0));
+        assertNull(new KnightTourEngine().findFullTour(config, 3, false, 0));
+    }
+
+    @Test(expected = CancellationException.class)
+    public void cancelledEnginesStopSearching() throws TimeoutException {
+        KnightTourEngine engine = new KnightTourEngine();
+        engine.cancel();
+        engine.findFullTour(SolverConfig.square(50, 0), 0, false, BUDGET_MILLIS);
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void searchStopsWhenTheBudgetIsUsedUp() throws TimeoutException {
+        new KnightTourEngine().findFullTour(SolverConfig.square(50, 0), 0, false, 0);
+    }
+
+    private void assertTour(SolverConfig config, int start, int length, boolean closed, int[] tour) {
+        assertNotNull(tour);
+        assertEquals(length, tour.length);
+        assertEquals(start, tour[0]);
+        KnightMoveTable moveTable = config.getMoveTable();
+        long[] visited = new long[moveTable.getWordCount()];
+        for (int i = 0; i < tour.length; i++) {
+            assertFalse(config.isBlocked(tour[i]));
+            assertFalse(BitBoard.contains(visited, 0, tour[i]));
+            BitBoard.add(visited, 0, tour[i]);
+            if (i > 0) {
+                assertTrue(moveTable.isMove(tour[i - 1], tour[i]));
+            }
+        }
+        if (closed) {
+            assertTrue(moveTable.isMove(tour[tour.length - 1], start));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LeaperTest {
+
+    @Test
+    public void knightMovesAreListedInTheEngineOrder() {
+        Leaper knight = Leaper.of(2, 1);
+        assertEquals(Leaper.KNIGHT, knight);
+        assertEquals(8, knight.getMoveCount());
+        assertEquals(-2, knight.getRowOffset(0));
+        assertEquals(-1, knight.getColumnOffset(0));
+        assertEquals(1, knight.getRowOffset(7));
+        assertEquals(2, knight.getColumnOffset(7));
+        assertSame(KnightMoveTable.forBoard(8, 8), KnightMoveTable.forBoard(Leaper.KNIGHT, 8, 8));
+    }
+
+    @Test
+    public void repeatedMovesAreListedOnce() {
+        assertEquals(4, Leaper.WAZIR.getMoveCount());
+        assertEquals(4, Leaper.FERZ.getMoveCount());
+        assertEquals(12, Leaper.KNIGHT.plus(Leaper.WAZIR).getMoveCount());
+        assertEquals(8, Leaper.KNIGHT.plus(Leaper.KNIGHT).getMoveCount());
+    }
+
+    @Test
+    public void bipartiteTables() {
+        assertTrue(KnightMoveTable.forBoard(Leaper.CAMEL, 8, 8).isBipartite());
+        assertTrue(KnightMoveTable.forBoard(Leaper.ZEBRA, 8, 8).isBipartite());
+        assertTrue(KnightMoveTable.forBoard(Leaper.KNIGHT.plus(Leaper.WAZIR), 8, 8).isBipartite());
+        assertFalse(KnightMoveTable.forBoard(Leaper.KNIGHT.plus(Leaper.FERZ), 8, 8).isBipartite());
+    }
+
+    @Test
+    public void enginesFindTheRoutesOfEveryLeaper() {
+        Leaper[] leapers = {Leaper.CAMEL, Leaper.ZEBRA, Leaper.KNIGHT.plus(Leaper.WAZIR), Leaper.KNIGHT.plus(Leaper.FERZ)};
+        for (Leaper leaper : leapers) {
+            SolverConfig config = SolverConfig.square(6, 4).withLeaper(leaper);
+            for (int[] query : new int[][]{{0, 35}, {7, 8}, {14, 21}}) {
+                List<int[]> expected = bruteForce(leaper, 6, query[0], query[1], 4);
+                String message = leaper + " " + query[0] + "->" + query[1];
+                assertRoutesEqual(message, expected, new KnightRouteEngine().solveRoute(config, query[0], query[1]));
+                assertRoutesEqual(message, expected, new BidirectionalRouteEngine().solveRoute(config, query[0], query[1]));
+                assertRoutesEqual(message, expected, new ParallelRouteEngine().solveRoute(config, query[0], query[1]));
+                assertRoutesEqual(message, expected, new RouteCache(Long.MAX_VALUE).solveRoute(config, query[0], query[1]));
+                List<int[]> iterated = new ArrayList<>();
+                RouteIterator iterator = new KnightRouteEngine().iterateRoutes(config, query[0], query[1]);
+                while (iterator.hasNext()) {
+                    iterated.add(iterator.next());
+                }
+                assertRoutesEqual(message, expected, iterated);
+                assertEquals(message, expected.size(), new RouteCounter().countRoutes(config, query[0], query[1]));
+            }
+        }
+    }
+
+    /**
+     * every simple route found by trying the moves of leaper directly, in the order of its moves
+     */
+    private List<int[]> bruteForce(Leaper leaper, int boardSize, int start, int end, int maxSteps) {
+        List<int[]> routes = new ArrayList<>();
+        if (start != end) {
+            List<Integer> path = new ArrayList<>();
+            path.add(start);
+            bruteForce(leaper, boardSize, path, end, maxSteps, routes);
+        }
+        //the sort is stable, so routes with the same number of moves stay in the order they were found
+        Collections.sort(routes, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] route1, int[] route2) {
+                return route1.length - route2.length;
+            }
+        });
+        return routes;
+    }
+
+    private void bruteForce(Leaper leaper, int boardSize, List<Integer> path, int end, int maxSteps, List<int[]> routes) {
+        int square = path.get(path.size() - 1);
+        if (square == end) {
+            int[] route = new int[path.size()];
+            for (int i = 0; i < route.length; i++) {
+                route[i] = path.get(i);
+            }
+            routes.add(route);
+            return;
+        }
+        if (path.size() > maxSteps) {
+            return;
+        }
+        for (int i = 0; i < leaper.getMoveCount(); i++) {
+            int row = Squares.row(square, boardSize) + leaper.getRowOffset(i);
+            int column = Squares.column(square, boardSize) + leaper.getColumnOffset(i);
+            if (row < 0 || row >= boardSize || column < 0 || column >= boardSize) {
+                continue;
+            }
+            int next = Squares.index(row, column, boardSize);
+            if (!path.contains(next)) {
+                path.add(next);
+                bruteForce(leaper, boardSize, path, end, maxSteps, routes);
+                path.remove(path.size() - 1);
+            }
+        }
+    }
+
+    private void assertRoutesEqual(String message, List<int[]> expected, List<int[]> routes) {
+        assertEquals(message, expected.size(), routes.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(message, expected.get(i), routes.get(i));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PackedRoutesTest {
+
+    @Test
+    public void keepsRoutesAndDescribesThem() {
+        PackedRoutes routes = PackedRoutes.pack(Arrays.asList(new int[]{0, 10}, new int[]{0, 17, 11, 1}));
+
+        assertEquals(2, routes.size());
+        assertEquals(4, routes.getSquareCount(1));
+        assertEquals(17, routes.getSquare(1, 1));
+        assertArrayEquals(new int[]{0, 17, 11, 1}, routes.getRoute(1));
+        assertEquals("A8, C7", routes.describe(0, 8, 8));
+        assertEquals("A8, B6, D7, B8", routes.describe(1, 8, 8));
+    }
+
+    @Test
+    public void namesColumnsAfterZ() {
+        assertEquals("Z30", Squares.toAlgebraic(25, 30, 30));
+        assertEquals("AA30", Squares.toAlgebraic(26, 30, 30));
+        assertEquals("AD1", Squares.toAlgebraic(30*30 - 1, 30, 30));
+    }
+}
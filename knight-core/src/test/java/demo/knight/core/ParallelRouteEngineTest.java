@@ -0,0 +1,32 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelRouteEngineTest {
+
+    @Test
+    public void findsSameRoutesInSameOrderAsDepthFirstSearch() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int[][] queries = {{0, 1}, {0, 10}, {0, 63}, {27, 36}, {7, 56}};
+        try {
+            for (int maxSteps = 1; maxSteps <= 7; maxSteps++) {
+                for (int[] query : queries) {
+                    List<int[]> expected = new KnightRouteEngine().solveRoute(SolverConfig.square(8, maxSteps), query[0], query[1]);
+                    List<int[]> routes = new ParallelRouteEngine(pool).solveRoute(SolverConfig.square(8, maxSteps), query[0], query[1]);
+
+                    assertEquals(expected.size(), routes.size());
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertArrayEquals(expected.get(i), routes.get(i));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RouteCacheTest {
+
+    @Test
+    public void symmetricQueriesShareOneEntryAndKeepTheirOrder() {
+        RouteCache cache = new RouteCache(Long.MAX_VALUE);
+        KnightRouteEngine engine = new KnightRouteEngine();
+        int boardSize = 8;
+        for (BoardSymmetry symmetry : BoardSymmetry.values()) {
+            int start = symmetry.apply(1, boardSize, boardSize);
+            int end = symmetry.apply(27, boardSize, boardSize);
+            assertRoutesEqual(engine.solveRoute(SolverConfig.square(boardSize, 6), start, end), cache.solveRoute(SolverConfig.square(boardSize, 6), start, end));
+            //second time from the cache
+            assertRoutesEqual(engine.solveRoute(SolverConfig.square(boardSize, 6), start, end), cache.solveRoute(SolverConfig.square(boardSize, 6), start, end));
+        }
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntriesOverTheByteLimit() {
+        long bytes3 = entryBytes(3), bytes4 = entryBytes(4), bytes5 = entryBytes(5);
+
+        RouteCache cache = new RouteCache(bytes4 + bytes5);
+        cache.solveRoute(SolverConfig.square(8, 4), 0, 10);
+        cache.solveRoute(SolverConfig.square(8, 3), 0, 10);
+        cache.get(SolverConfig.square(8, 4), 0, 10);
+        cache.solveRoute(SolverConfig.square(8, 5), 0, 10);
+
+        assertEquals(bytes4 + bytes5, cache.getByteSize());
+        assertNotNull(cache.get(SolverConfig.square(8, 4), 0, 10));
+        assertNotNull(cache.get(SolverConfig.square(8, 5), 0, 10));
+        assertNull(cache.get(SolverConfig.square(8, 3), 0, 10));
+        assertTrue(bytes3 > 0);
+    }
+
+    private long entryBytes(int maxSteps) {
+        RouteCache cache = new RouteCache(Long.MAX_VALUE);
+        cache.solveRoute(SolverConfig.square(8, maxSteps), 0, 10);
+        return cache.getByteSize();
+    }
+
+    @Test
+    public void symmetriesAreUndoneByTheirInverse() {
+        for (BoardSymmetry symmetry : BoardSymmetry.values()) {
+            for (int square = 0; square < 25; square++) {
+                assertEquals(square, symmetry.inverse().apply(symmetry.apply(square, 5, 5), 5, 5));
+            }
+        }
+    }
+
+    private void assertRoutesEqual(List<int[]> expected, List<int[]> routes) {
+        assertEquals(expected.size(), routes.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), routes.get(i));
+        }
+    }
+}
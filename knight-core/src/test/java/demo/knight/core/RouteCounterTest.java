@@ -0,0 +1,63 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+public class RouteCounterTest {
+
+    @Test
+    public void countsSameRoutesAsTheSearch() {
+        RouteCounter counter = new RouteCounter();
+        KnightRouteEngine engine = new KnightRouteEngine();
+        int[][] queries = {{0, 1}, {0, 63}, {27, 36}, {7, 56}};
+        for (int maxSteps = 1; maxSteps <= 6; maxSteps++) {
+            for (int[] query : queries) {
+                assertEquals(engine.solveRoute(SolverConfig.square(8, maxSteps), query[0], query[1]).size(),
+                        counter.countRoutes(SolverConfig.square(8, maxSteps), query[0], query[1]));
+            }
+        }
+    }
+
+    @Test
+    public void countsWalksThatStopOnTheEndSquare() {
+        RouteCounter counter = new RouteCounter();
+        KnightMoveTable moveTable = KnightMoveTable.forBoard(6, 6);
+        for (int maxSteps = 0; maxSteps <= 6; maxSteps++) {
+            long expected = countWalksOneByOne(moveTable, 0, 35, maxSteps);
+            assertEquals(expected, counter.countWalks(SolverConfig.square(6, maxSteps), 0, 35));
+            assertEquals(BigInteger.valueOf(expected), counter.countWalksExactly(SolverConfig.square(6, maxSteps), 0, 35));
+        }
+    }
+
+    @Test
+    public void matrixPowersAgreeWithMoveByMoveCounting() {
+        RouteCounter counter = new RouteCounter();
+        KnightMoveTable moveTable = KnightMoveTable.forBoard(5, 5);
+        for (int maxSteps : new int[]{1, 2, 7, 64, 100}) {
+            assertEquals(counter.countWalksMoveByMove(moveTable, 2, 12, maxSteps),
+                    counter.countWalksWithMatrixPowers(moveTable, 2, 12, maxSteps));
+            assertEquals(counter.countWalksMoveByMove(moveTable, 6, 6, maxSteps),
+                    counter.countWalksWithMatrixPowers(moveTable, 6, 6, maxSteps));
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void walkCountOverflowIsReported() {
+        new RouteCounter().countWalks(SolverConfig.square(8, 200), 0, 63);
+    }
+
+    private long countWalksOneByOne(KnightMoveTable moveTable, int square, int end, int movesLeft) {
+        long count = 0;
+        if (movesLeft == 0) {
+            return 0;
+        }
+        for (int i = moveTable.firstMove(square); i < moveTable.endMove(square); i++) {
+            int next = moveTable.destination(i);
+            count += next == end ? 1 : countWalksOneByOne(moveTable, next, end, movesLeft - 1);
+        }
+        return count;
+    }
+}
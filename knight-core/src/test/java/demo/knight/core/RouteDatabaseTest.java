@@ -0,0 +1,93 @@
+package demo.knight.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RouteDatabaseTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void answersEveryPairLikeTheEngine() throws IOException {
+        SolverConfig config = SolverConfig.square(6, 4);
+        RouteDatabase database = build(config);
+
+        KnightRouteEngine engine = new KnightRouteEngine();
+        for(int start = 0; start<config.getSquareCount(); start++){
+            for(int end = 0; end<config.getSquareCount(); end++){
+                assertSameRoutes(engine.solveRoute(config, start, end), database.solveRoute(start, end));
+            }
+        }
+    }
+
+    @Test
+    public void answersLowerStepLimitsAndLimits() throws IOException {
+        SolverConfig config = SolverConfig.square(8, 5);
+        RouteDatabase database = build(config);
+        SolverConfig lower = config.withMaxSteps(3);
+
+        assertTrue(database.supports(lower));
+        assertFalse(database.supports(config.withMaxSteps(6)));
+        assertFalse(database.supports(SolverConfig.square(7, 5)));
+        assertFalse(database.supports(lower.withLeaper(Leaper.CAMEL)));
+        assertSameRoutes(new KnightRouteEngine().solveRoute(lower, 0, 1), database.solveRoute(lower, 0, 1, Integer.MAX_VALUE));
+        assertSameRoutes(new KnightRouteEngine().solveRoute(config, 0, 63, 10), database.solveRoute(config, 0, 63, 10));
+    }
+
+    @Test
+    public void usesTwoBytesPerSquareOnLargeBoards() throws IOException {
+        SolverConfig config = SolverConfig.square(16, 2);
+        RouteDatabase database = build(config);
+
+        assertSameRoutes(new KnightRouteEngine().solveRoute(config, 255, 221), database.solveRoute(255, 221));
+        assertEquals(config, database.getConfig());
+    }
+
+    @Test
+    public void readsBuffersWithAnyPositionAndByteOrder() throws IOException {
+        SolverConfig config = SolverConfig.square(5, 3);
+        File file = folder.newFile();
+        RouteDatabaseWriter.write(config, file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        //the database after 8 bytes of something else, in a little endian buffer
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(8);
+        buffer.put(bytes);
+        buffer.position(8);
+        RouteDatabase database = new RouteDatabase(buffer);
+
+        assertEquals(config, database.getConfig());
+        assertSameRoutes(new KnightRouteEngine().solveRoute(config, 0, 7), database.solveRoute(0, 7));
+        assertEquals(8, buffer.position());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new RouteDatabase(ByteBuffer.allocate(64));
+    }
+
+    private RouteDatabase build(SolverConfig config) throws IOException {
+        File file = folder.newFile();
+        RouteDatabaseWriter.write(config, file);
+        return RouteDatabase.open(file);
+    }
+
+    private static void assertSameRoutes(List<int[]> expected, List<int[]> routes) {
+        assertEquals(expected.size(), routes.size());
+        for(int i = 0; i<expected.size(); i++){
+            assertArrayEquals(expected.get(i), routes.get(i));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package demo.knight.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RouteResultSetBuilderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsSmallResultSetsInMemory() throws IOException {
+        SolverConfig config = SolverConfig.square(8, 4);
+        RouteResultSetBuilder builder = new RouteResultSetBuilder(config.getMaxSteps() + 1, 1 << 20, folder.getRoot());
+        builder.addAll(new KnightRouteEngine().iterateRoutes(config, 0, 63));
+        RouteResultSet routes = builder.build();
+
+        assertFalse(builder.isSpilled());
+        assertSameRoutes(new KnightRouteEngine().solveRoute(config, 0, 63), routes);
+    }
+
+    @Test
+    public void spillsLargeResultSetsToAMappedFile() throws IOException {
+        SolverConfig config = SolverConfig.square(8, 6);
+        List<int[]> expected = new KnightRouteEngine().solveRoute(config, 0, 63);
+        RouteResultSetBuilder builder = new RouteResultSetBuilder(config.getMaxSteps() + 1, 1024, folder.getRoot());
+        builder.addAll(new KnightRouteEngine().iterateRoutes(config, 0, 63));
+        RouteResultSet routes = builder.build();
+
+        assertTrue(builder.isSpilled());
+        assertTrue(expected.size()*MappedRoutes.recordSize(7)>1024);
+        assertSameRoutes(expected, routes);
+        assertEquals("A8, C7, E8, G7, H5, F4, H1".length(), routes.describe(0, 8, 8).length());
+        //the file is deleted once it is mapped
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void spillsTheFirstRouteOverTheThreshold() throws IOException {
+        int recordSize = MappedRoutes.recordSize(3);
+        RouteResultSetBuilder builder = new RouteResultSetBuilder(3, 3*recordSize, folder.getRoot());
+        for(int i = 0; i<3; i++){
+            builder.add(new int[]{0, 17, 2 + i});
+        }
+        assertFalse(builder.isSpilled());
+
+        builder.add(new int[]{0, 17, 5});
+        RouteResultSet routes = builder.build();
+
+        assertTrue(builder.isSpilled());
+        assertEquals(4, routes.size());
+        assertArrayEquals(new int[]{0, 17, 5}, routes.getRoute(3));
+    }
+
+    @Test
+    public void acceptsThresholdsAboveTheLargestBuffer() throws IOException {
+        RouteResultSetBuilder builder = new RouteResultSetBuilder(5, 3L << 30, folder.getRoot());
+        builder.add(new int[]{0, 17, 11});
+        RouteResultSet routes = builder.build();
+
+        assertFalse(builder.isSpilled());
+        assertArrayEquals(new int[]{0, 17, 11}, routes.getRoute(0));
+    }
+
+    @Test
+    public void buildsEmptyResultSets() throws IOException {
+        RouteResultSet routes = new RouteResultSetBuilder(5, 1024, folder.getRoot()).build();
+
+        assertEquals(0, routes.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRoutesLongerThanARecord() throws IOException {
+        new RouteResultSetBuilder(3, 1024, folder.getRoot()).add(new int[]{0, 17, 11, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeThresholds() {
+        new RouteResultSetBuilder(5, -1, folder.getRoot());
+    }
+
+    private static void assertSameRoutes(List<int[]> expected, RouteResultSet routes) {
+        assertEquals(expected.size(), routes.size());
+        for(int i = 0; i<expected.size(); i++){
+            assertArrayEquals(expected.get(i), routes.getRoute(i));
+        }
+    }
+}
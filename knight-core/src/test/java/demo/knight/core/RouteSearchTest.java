@@ -0,0 +1,85 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RouteSearchTest {
+
+    @Test
+    public void deliversAllRoutesInBatchesWithTheFastestFirst() {
+        RecordingListener listener = new RecordingListener();
+        new RouteSearch(SolverConfig.square(8, 7), 0, 63, 50, listener).run();
+
+        List<int[]> expected = new KnightRouteEngine().solveRoute(SolverConfig.square(8, 7), 0, 63);
+        assertEquals(1, listener.batches.get(0).size());
+        assertEquals(expected.size(), listener.routes.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), listener.routes.get(i));
+        }
+        for (List<int[]> batch : listener.batches) {
+            assertTrue(batch.size() <= 50);
+        }
+        assertEquals(7, listener.lastProgress);
+        assertEquals(Boolean.FALSE, listener.finishedCancelled);
+    }
+
+    @Test
+    public void stopsWhenCancelled() {
+        final RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onRoutesFound(List<int[]> routes) {
+                super.onRoutesFound(routes);
+                search.cancel();
+            }
+        };
+        listener.search = new RouteSearch(SolverConfig.square(8, 9), 0, 63, 10, listener);
+        listener.search.run();
+
+        assertEquals(1, listener.batches.size());
+        assertEquals(Boolean.TRUE, listener.finishedCancelled);
+    }
+
+    @Test
+    public void stopsAtTheLimit() {
+        RouteCache cache = new RouteCache(Long.MAX_VALUE);
+        RecordingListener listener = new RecordingListener();
+        new RouteSearch(SolverConfig.square(8, 7), 0, 63, 25, 10, cache, listener).run();
+
+        List<int[]> expected = new KnightRouteEngine().solveRoute(SolverConfig.square(8, 7), 0, 63);
+        assertEquals(25, listener.routes.size());
+        for (int i = 0; i < 25; i++) {
+            assertArrayEquals(expected.get(i), listener.routes.get(i));
+        }
+        //partial results are not cached
+        assertNull(cache.get(SolverConfig.square(8, 7), 0, 63));
+        assertEquals(Boolean.FALSE, listener.finishedCancelled);
+    }
+
+    private static class RecordingListener implements RouteSearch.Listener {
+        RouteSearch search;
+        List<List<int[]>> batches = new ArrayList<>();
+        List<int[]> routes = new ArrayList<>();
+        int lastProgress;
+        Boolean finishedCancelled;
+
+        @Override
+        public void onRoutesFound(List<int[]> routes) {
+            batches.add(routes);
+            this.routes.addAll(routes);
+        }
+
+        @Override
+        public void onProgress(int routeLength, int maxSteps) {
+            lastProgress = routeLength;
+        }
+
+        @Override
+        public void onSearchFinished(boolean cancelled) {
+            finishedCancelled = cancelled;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RouteVisitorTest {
+
+    @Test
+    public void visitsTheRoutesOfSolveRoute() {
+        for(SolverConfig config:new SolverConfig[]{SolverConfig.square(8, 6), SolverConfig.square(5, 7), SolverConfig.square(6, 5).withLeaper(Leaper.WAZIR)}){
+            final Set<String> visited = new HashSet<>();
+            boolean complete = new KnightRouteEngine().visitRoutes(config, 0, config.getSquareCount() - 1, new RouteVisitor() {
+                @Override
+                public boolean visit(RouteView route) {
+                    assertTrue(visited.add(Arrays.toString(route.toArray())));
+                    return true;
+                }
+            });
+
+            Set<String> expected = new HashSet<>();
+            for(int[] route:new KnightRouteEngine().solveRoute(config, 0, config.getSquareCount() - 1)){
+                expected.add(Arrays.toString(route));
+            }
+            assertTrue(complete);
+            assertEquals(expected, visited);
+        }
+    }
+
+    @Test
+    public void reusesOneView() {
+        final List<RouteView> views = new ArrayList<>();
+        new KnightRouteEngine().visitRoutes(SolverConfig.square(8, 6), 0, 63, new RouteVisitor() {
+            @Override
+            public boolean visit(RouteView route) {
+                views.add(route);
+                assertEquals(0, route.getSquare(0));
+                assertEquals(63, route.getSquare(route.getMoveCount()));
+                return true;
+            }
+        });
+
+        assertTrue(views.size()>1);
+        for(RouteView view:views){
+            assertSame(views.get(0), view);
+        }
+    }
+
+    @Test
+    public void stopsWhenTheVisitorSaysSo() {
+        final int[] count = new int[1];
+        boolean complete = new KnightRouteEngine().visitRoutes(SolverConfig.square(8, 6), 0, 63, new RouteVisitor() {
+            @Override
+            public boolean visit(RouteView route) {
+                return ++count[0]<3;
+            }
+        });
+
+        assertFalse(complete);
+        assertEquals(3, count[0]);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void viewsOnlyShowTheRoute() {
+        new KnightRouteEngine().visitRoutes(SolverConfig.square(8, 6), 0, 63, new RouteVisitor() {
+            @Override
+            public boolean visit(RouteView route) {
+                route.getSquare(route.getSquareCount());
+                return true;
+            }
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package demo.knight.core;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SolverConfigTest {
+
+    @Test
+    public void configsWithTheSameBoardShareTheirTables() {
+        SolverConfig config = SolverConfig.square(8, 4);
+        assertSame(config.getMoveTable(), config.withMaxSteps(6).getMoveTable());
+        assertEquals(config, new SolverConfig(8, 8, 4));
+        assertNotEquals(config, config.withMaxSteps(6));
+    }
+
+    @Test
+    public void rectangularBoards() {
+        SolverConfig config = new SolverConfig(4, 3, 3);
+        assertEquals("A3", config.toAlgebraic(0));
+        assertEquals("D1", config.toAlgebraic(11));
+
+        //A3 -> B1 -> D2 is the only route in at most 3 moves on the 4x3 board that lands on D2
+        List<int[]> routes = new KnightRouteEngine().solveRoute(config, 0, config.squareAt(1, 3));
+        assertEquals(1, routes.size());
+        assertArrayEquals(new int[]{0, 9, 7}, routes.get(0));
+
+        //the same board turned sideways has the transposed routes
+        List<int[]> transposed = new KnightRouteEngine().solveRoute(new SolverConfig(3, 4, 3), 0, Squares.index(3, 1, 3));
+        assertEquals(1, transposed.size());
+    }
+
+    @Test
+    public void largeBoards() {
+        SolverConfig config = SolverConfig.square(64, 5);
+        int start = config.squareAt(0, 0);
+        int end = config.squareAt(63, 63);
+        assertTrue(new KnightRouteEngine().solveRoute(config, start, end).isEmpty());
+        assertEquals(42, config.getDistanceMap(end).getDistance(start));
+
+        int center = config.squareAt(32, 32);
+        List<int[]> routes = new KnightRouteEngine().solveRoute(config, center, config.squareAt(34, 33));
+        assertArrayEquals(new int[]{center, config.squareAt(34, 33)}, routes.get(0));
+        assertEquals(new RouteCounter().countRoutes(config, center, config.squareAt(34, 33)), routes.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void squaresOutsideTheBoardAreRejected() {
+        new KnightRouteEngine().solveRoute(SolverConfig.square(8, 4), 0, 64);
+    }
+}
@@ -0,0 +1,133 @@
+package demo.knight.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SolverStatsTest {
+
+    private final List<SolverStats> finished = new ArrayList<>();
+    private final List<String> phases = new ArrayList<>();
+
+    private final SolverStats.Listener listener = new SolverStats.Listener() {
+        @Override
+        public void onPhaseStarted(SolverStats.Phase phase) {
+            phases.add("+" + phase);
+        }
+
+        @Override
+        public void onPhaseFinished(SolverStats.Phase phase) {
+            phases.add("-" + phase);
+        }
+
+        @Override
+        public void onQueryFinished(SolverStats stats) {
+            finished.add(stats);
+        }
+    };
+
+    @After
+    public void tearDown() {
+        SolverStats.setListener(null);
+    }
+
+    @Test
+    public void countsTheSearchOfSolveRoute() {
+        SolverStats.setListener(listener);
+        SolverConfig config = SolverConfig.square(8, 6);
+        List<int[]> routes = new KnightRouteEngine().solveRoute(config, 0, 63);
+
+        assertEquals(1, finished.size());
+        SolverStats stats = finished.get(0);
+        assertEquals(0, stats.getStart());
+        assertEquals(63, stats.getEnd());
+        assertEquals(routes.size(), stats.getRoutesFound());
+        assertTrue(stats.getNodes()>routes.size());
+        assertTrue(stats.getPrunes(SolverStats.Prune.VISITED)>0);
+        assertTrue(stats.getPrunes(SolverStats.Prune.TOO_FAR)>0);
+        assertTrue(stats.getAllocatedBytes()>=routes.size()*(16 + 4*7L));
+        assertTrue(stats.getPhaseNanos(SolverStats.Phase.SEARCH)>0);
+        assertEquals("[+SEARCH, -SEARCH, +JOIN, -JOIN]", phases.toString());
+    }
+
+    @Test
+    public void reportsIteratorsOnceTheyAreDone() {
+        SolverStats.setListener(listener);
+        SolverConfig config = SolverConfig.square(8, 6);
+        List<int[]> routes = new KnightRouteEngine().solveRoute(config, 0, 63, 5);
+
+        assertEquals(1, finished.size());
+        assertEquals(5, finished.get(0).getRoutesFound());
+        assertEquals(5, routes.size());
+
+        //17 is a single move from 0, so searches for longer routes reach it with moves left
+        RouteIterator iterator = new KnightRouteEngine().iterateRoutes(config, 0, 17);
+        int count = 0;
+        while (iterator.hasNext()){
+            iterator.next();
+            count++;
+        }
+        iterator.hasNext();
+        assertEquals(2, finished.size());
+        assertEquals(count, finished.get(1).getRoutesFound());
+        assertTrue(finished.get(1).getPrunes(SolverStats.Prune.EARLY_END)>0);
+    }
+
+    @Test
+    public void iteratorsReportASearchPhasePerRouteLength() {
+        SolverStats.setListener(listener);
+        //routes from 0 to 17 have 1, 3 or 5 moves on a bipartite board
+        RouteIterator iterator = new KnightRouteEngine().iterateRoutes(SolverConfig.square(8, 6), 0, 17);
+        int count = 0;
+        while (iterator.hasNext()){
+            iterator.next();
+            count++;
+        }
+
+        assertTrue(count>3);
+        assertEquals("[+SEARCH, -SEARCH, +SEARCH, -SEARCH, +SEARCH, -SEARCH]", phases.toString());
+        assertTrue(finished.get(0).getPhaseNanos(SolverStats.Phase.SEARCH)>0);
+    }
+
+    @Test
+    public void closesTheSearchPhaseOfIteratorsStoppedEarly() {
+        SolverStats.setListener(listener);
+        //the only route with 1 move, then the first with 3 moves while that length is still searched
+        new KnightRouteEngine().solveRoute(SolverConfig.square(8, 6), 0, 17, 2);
+
+        assertEquals("[+SEARCH, -SEARCH, +SEARCH, -SEARCH]", phases.toString());
+    }
+
+    @Test
+    public void timesTheDeliveryOfRouteSearches() {
+        SolverStats.setListener(listener);
+        new RouteSearch(SolverConfig.square(8, 6), 0, 63, 10, new RouteSearch.Listener() {
+            @Override
+            public void onRoutesFound(List<int[]> routes) {
+            }
+
+            @Override
+            public void onProgress(int routeLength, int maxSteps) {
+            }
+
+            @Override
+            public void onSearchFinished(boolean cancelled) {
+            }
+        }).run();
+
+        assertEquals(1, finished.size());
+        assertTrue(phases.contains("+DELIVER"));
+        assertTrue(finished.get(0).getPhaseNanos(SolverStats.Phase.DELIVER)>0);
+    }
+
+    @Test
+    public void collectsNothingWithoutListener() {
+        new KnightRouteEngine().solveRoute(SolverConfig.square(8, 4), 0, 63);
+
+        assertTrue(finished.isEmpty());
+    }
+}